@@ -0,0 +1,61 @@
+package co.eci.pathfinder;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Asignacion de memoria por primo encontrado: cada operacion es un primo, asi que con -prof gc
+//la metrica gc.alloc.rate.norm queda en bytes por primo
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllocationBenchmark {
+
+    private static final int LIMIT = 1_000_000;
+    //pi(10^6)
+    private static final int PRIMES = 78_498;
+
+    @Param({"sieve", "trial"})
+    String engine;
+
+    private PrimeEngine primeEngine;
+
+    @Setup
+    public void setup() {
+        primeEngine = PrimeEngine.of(engine, 0, LIMIT);
+    }
+
+    //Como lo guarda hoy cada PrimeFinderThread
+    @Benchmark
+    @OperationsPerInvocation(PRIMES)
+    public PrimeStore primeStore() {
+        PrimeStore.Builder primes = new PrimeStore.Builder();
+        primeEngine.scan(0, LIMIT, primes::add);
+        return primes.build();
+    }
+
+    //Referencia: la lista encajonada que se usaba antes
+    @Benchmark
+    @OperationsPerInvocation(PRIMES)
+    public List<Integer> boxedLinkedList() {
+        List<Integer> primes = new LinkedList<>();
+        primeEngine.scan(0, LIMIT, p -> primes.add((int) p));
+        return primes;
+    }
+}
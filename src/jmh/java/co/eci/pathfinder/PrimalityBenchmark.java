@@ -0,0 +1,54 @@
+package co.eci.pathfinder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Costo de evaluar un solo numero segun su magnitud
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimalityBenchmark {
+
+    //Cantidad de candidatos (potencia de 2) que se recorren en ciclo
+    private static final int CANDIDATES = 1024;
+
+    @Param({"1000", "1000000", "1000000000", "2000000000", "1000000000000", "1000000000000000"})
+    long magnitude;
+
+    //Impares consecutivos desde la magnitud: mezcla realista de primos y compuestos
+    private long[] candidates;
+    private int next;
+
+    @Setup
+    public void setup() {
+        candidates = new long[CANDIDATES];
+        long n = magnitude | 1;
+        for (int i = 0; i < CANDIDATES; i++, n += 2) {
+            candidates[i] = n;
+        }
+    }
+
+    @Benchmark
+    public boolean trialDivision() {
+        return TrialDivisionEngine.isPrime(candidates[next++ & (CANDIDATES - 1)]);
+    }
+
+    @Benchmark
+    public boolean millerRabin() {
+        return MillerRabinEngine.isPrime(candidates[next++ & (CANDIDATES - 1)]);
+    }
+}
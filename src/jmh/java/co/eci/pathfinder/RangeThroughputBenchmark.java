@@ -0,0 +1,81 @@
+package co.eci.pathfinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Busqueda completa sobre [0, range) con varios hilos, igual que Control pero sin pausas.
+//El contador auxiliar "numbers" da los numeros evaluados por segundo
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeThroughputBenchmark {
+
+    //Mismo bloque minimo que usa Control
+    private static final int MIN_CHUNK = 1 << 12;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    //Para el rango completo de Control: -p range=300000001
+    @Param({"1000000", "10000000"})
+    int range;
+
+    @Param({"sieve", "millerrabin", "trial"})
+    String engine;
+
+    @Param({"static", "dynamic"})
+    String scheduler;
+
+    private PrimeEngine primeEngine;
+    private int chunk;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        //Numeros evaluados y primos encontrados (JMH los reporta por segundo)
+        public long numbers;
+        public long primes;
+    }
+
+    @Setup
+    public void setup() {
+        primeEngine = PrimeEngine.of(engine, 0, range);
+        chunk = primeEngine.chunkSize(MIN_CHUNK);
+    }
+
+    @Benchmark
+    public long search(Counters counters) throws InterruptedException {
+        PauseCheckpoint checkpoint = new PauseCheckpoint();
+        AtomicLong primesCount = new AtomicLong(0);
+        RangeScheduler ranges = RangeScheduler.of(scheduler, 0, range, threads, chunk);
+
+        PrimeFinderThread[] pft = new PrimeFinderThread[threads];
+        for (int i = 0; i < threads; i++) {
+            pft[i] = new PrimeFinderThread(i, ranges, checkpoint, primesCount, primeEngine, chunk);
+            pft[i].start();
+        }
+        for (PrimeFinderThread t : pft) {
+            t.join();
+        }
+
+        counters.numbers += range;
+        counters.primes += primesCount.get();
+        return primesCount.get();
+    }
+}
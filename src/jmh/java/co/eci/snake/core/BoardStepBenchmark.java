@@ -0,0 +1,101 @@
+package co.eci.snake.core;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Board.step con 1, 4, 16 y 64 hilos sobre un mismo tablero; cada hilo mueve su propia serpiente.
+// Una serpiente que choca se retira y se reemplaza para que todas las operaciones sean pasos reales.
+// Con -prof gc, gc.alloc.rate.norm da los bytes asignados por paso
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardStepBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Shared {
+    @Param({"LOCKED", "LOCK_FREE"})
+    Board.Mode mode;
+
+    @Param({"1000"})
+    int size;
+
+    Board board;
+    final AtomicInteger ids = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+      board = new Board(size, size, mode, 42L);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Mover {
+    SplittableRandom random;
+    Snake snake;
+
+    @Setup
+    public void setup(Shared shared) {
+      random = new SplittableRandom(shared.ids.get());
+      snake = spawn(shared);
+    }
+
+    Snake spawn(Shared shared) {
+      var dirs = Direction.values();
+      while (true) {
+        Snake s = Snake.of(shared.ids.getAndIncrement(), random.nextInt(shared.size), random.nextInt(shared.size),
+            dirs[random.nextInt(dirs.length)]);
+        if (shared.board.addSnake(s)) return s;
+      }
+    }
+  }
+
+  private static Board.MoveResult step(Shared shared, Mover mover) {
+    if (mover.random.nextInt(10) == 0) mover.snake.turn(Direction.values()[mover.random.nextInt(4)]);
+    var res = shared.board.step(mover.snake);
+    if (res == Board.MoveResult.HIT_OBSTACLE || res == Board.MoveResult.HIT_SNAKE) {
+      shared.board.removeSnake(mover.snake);
+      mover.snake = mover.spawn(shared);
+    }
+    return res;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Board.MoveResult threads01(Shared shared, Mover mover) {
+    return step(shared, mover);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Board.MoveResult threads04(Shared shared, Mover mover) {
+    return step(shared, mover);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Board.MoveResult threads16(Shared shared, Mover mover) {
+    return step(shared, mover);
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Board.MoveResult threads64(Shared shared, Mover mover) {
+    return step(shared, mover);
+  }
+}
@@ -0,0 +1,82 @@
+package co.eci.snake.core;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Copias que GamePanel pide en cada cuadro: mice(), obstacles(), turbo() y teleports().
+// El tablero se juega antes de medir para que haya obstáculos acumulados como en una partida larga
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoardViewsBenchmark {
+
+  @Param({"LOCKED", "LOCK_FREE"})
+  Board.Mode mode;
+
+  @Param({"50", "1000"})
+  int size;
+
+  // Ratones comidos antes de medir (cada uno deja un obstáculo nuevo), con un tope de pasos para tableros grandes
+  @Param({"200"})
+  int eaten;
+
+  private static final int MAX_STEPS = 2_000_000;
+
+  private Board board;
+
+  @Setup
+  public void setup() {
+    board = new Board(size, size, mode, 42L);
+    int id = 0;
+    Snake snake = Snake.of(id++, 0, 0, Direction.RIGHT);
+    board.addSnake(snake);
+    var dirs = Direction.values();
+    var random = new java.util.SplittableRandom(7);
+    for (int ate = 0, steps = 0; ate < eaten && steps < MAX_STEPS; steps++) {
+      if (random.nextInt(10) == 0) snake.turn(dirs[random.nextInt(4)]);
+      var res = board.step(snake);
+      if (res == Board.MoveResult.ATE_MOUSE) ate++;
+      if (res == Board.MoveResult.HIT_OBSTACLE || res == Board.MoveResult.HIT_SNAKE) {
+        board.removeSnake(snake);
+        snake = Snake.of(id++, random.nextInt(size), random.nextInt(size), dirs[random.nextInt(4)]);
+        board.addSnake(snake); // Es la única serpiente: su celda está libre
+      }
+    }
+  }
+
+  @Benchmark
+  public Set<Position> mice() {
+    return board.mice();
+  }
+
+  @Benchmark
+  public Set<Position> obstacles() {
+    return board.obstacles();
+  }
+
+  @Benchmark
+  public Set<Position> turbo() {
+    return board.turbo();
+  }
+
+  @Benchmark
+  public Map<Position, Position> teleports() {
+    return board.teleports();
+  }
+}
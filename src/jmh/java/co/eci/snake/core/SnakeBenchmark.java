@@ -0,0 +1,82 @@
+package co.eci.snake.core;
+
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Snake.advance y Snake.snapshot() según el largo del cuerpo. Las posiciones se crean en el setup,
+// así que en advance (-prof gc) solo aparece lo que asigna la propia serpiente; advancePacked, headCell y
+// copyBody son las variantes sin objetos que usa Board
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnakeBenchmark {
+
+  private static final int WIDTH = 4096;
+
+  @Param({"5", "50", "500", "5000"})
+  int length;
+
+  private Snake snake;
+  private Position[] path;
+  private int next;
+  private int[] buffer;
+
+  @Setup
+  public void setup() {
+    snake = Snake.of(0, 0, 0, Direction.RIGHT);
+    path = new Position[WIDTH];
+    for (int x = 0; x < WIDTH; x++) path[x] = new Position(x, 0);
+    // Llegar al largo pedido: empieza con 1 celda y maxLength 5
+    for (int i = 1; i < length; i++) snake.advance(path[i % WIDTH], i >= 5);
+    next = length;
+    buffer = new int[2 * length];
+  }
+
+  @Benchmark
+  public Position advance() {
+    Position p = path[next++ & (WIDTH - 1)];
+    snake.advance(p, false);
+    return p;
+  }
+
+  @Benchmark
+  public Deque<Position> snapshot() {
+    return snake.snapshot();
+  }
+
+  @Benchmark
+  public Position head() {
+    return snake.head();
+  }
+
+  @Benchmark
+  public int advancePacked() {
+    int x = next++ & (WIDTH - 1);
+    return snake.advance(x, 0, false);
+  }
+
+  @Benchmark
+  public int headCell() {
+    return snake.headCell();
+  }
+
+  @Benchmark
+  public int copyBody() {
+    return snake.copyBody(buffer);
+  }
+}
@@ -1,37 +1,78 @@
 package co.eci.pathfinder;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Scanner;
 
 public class Control extends Thread {
     
-    private final static int NTHREADS = 3; //Cantidad de hilos a utilizar
+    private final static int NTHREADS = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors()); //Cantidad de hilos a utilizar
     private final static int MAXVALUE = 300000000; //Valor maximo a evaluar
+    private final static long FROM = Long.getLong("from", 0L); //Inicio del rango (inclusive), admite valores de 64 bits
+    private final static long TO = Long.getLong("to", MAXVALUE + 1L); //Fin del rango (exclusivo)
     private final static int TMILISECONDS = 5000; //Tiempo en milisegundos
+    private final static String ENGINE = System.getProperty("engine", "auto"); //Motor de primalidad: auto, sieve, millerrabin o trial
+    private final static String SCHEDULER = System.getProperty("scheduler", "dynamic"); //Reparto del rango: dynamic o static
+    private final static int MIN_CHUNK = 1 << 12; //Tamaño minimo de bloque (reparto dinamico y puntos de pausa)
+    private final static String PROGRESS = System.getProperty("progress"); //Archivo de progreso para retomar (opcional)
+    private final static String INDEX = System.getProperty("index"); //Archivo de indice a escribir al terminar (opcional)
+    private final static boolean ANALYTICS = Boolean.getBoolean("analytics"); //Imprimir diferencias, gemelos y residuos al terminar
+    private final static String MODE = System.getProperty("mode", "search"); //search: enumerar los primos; count: solo contarlos
+    private final static long CROSS_CHECK_LIMIT = 1_000_000_000L; //Hasta aqui el conteo se verifica con la criba
 
-    private final int NDATA = MAXVALUE / NTHREADS; //Cantidad de datos a evaluar por hilo
-
-    private volatile boolean isPaused = false; //Variable para pausar la ejecucion de los hilos
-
-    private AtomicInteger primesCount = new AtomicInteger(0); //Contador atomico para el numero de primos encontrados
+    private AtomicLong primesCount = new AtomicLong(0); //Contador atomico para el numero de primos encontrados
 
     Scanner sc = new Scanner(System.in); //Scanner para leer la entrada por consola
 
     private PrimeFinderThread pft[];
 
-    private Object lock = new Object(); //Objeto para sincronizacion de hilos
+    private final PauseCheckpoint checkpoint = new PauseCheckpoint(); //Punto de control para pausar los hilos
+
+    private final PrimeEngine engine = PrimeEngine.of(ENGINE, FROM, TO); //Motor compartido por todos los hilos (auto: segun la densidad del rango)
+
+    private volatile PrimeStore allPrimes = PrimeStore.empty(); //Primos de todos los hilos, disponible al terminar
+
+    private volatile PrimeAnalytics analytics = PrimeAnalytics.empty(); //Estadisticas de todos los hilos, disponibles al terminar
+
+    private final PrimeAnalytics.Seams seams = new PrimeAnalytics.Seams(); //Une los bordes de los bloques a medida que los hilos los cierran
+
+    private ProgressFile progress; //Archivo de progreso (null si no se usa)
+
+    private PrimeStore resumed = PrimeStore.empty(); //Primos de los rangos terminados en una ejecucion anterior
+
+    private long pendientes; //Cantidad de numeros que evalua esta ejecucion
+
+    private PrimeSearchMetrics metrics; //Metricas publicadas por JMX y JFR
     
     private Control() {
         super();
 
         this.pft = new  PrimeFinderThread[NTHREADS]; //Arreglo de hilos
 
-        int i;
-        for(i = 0;i < NTHREADS - 1; i++) {
-            PrimeFinderThread elem = new PrimeFinderThread(i*NDATA, (i+1)*NDATA, lock, primesCount, this); //Crear hilo e indicar rango de numeros a evaluar
-            pft[i] = elem;
+        //El bloque minimo se alinea con el bloque del motor para no partir segmentos de la criba;
+        //tambien define cada cuanto los hilos consultan la pausa, lo que acota la latencia de pausa
+        int minChunk = engine.chunkSize(MIN_CHUNK);
+
+        //Si hay archivo de progreso solo se evalua lo que falta y se recupera lo ya encontrado
+        List<Range> rangos = List.of(new Range(FROM, TO));
+        if (PROGRESS != null) {
+            progress = ProgressFile.open(Path.of(PROGRESS), FROM, TO, MIN_CHUNK);
+            rangos = RangeList.missing(FROM, TO, progress.completedRanges());
+            primesCount.set(progress.completedPrimes());
+            resumed = progress.completedStore();
+            System.out.println("Retomando desde " + PROGRESS + ": " + primesCount.get() + " primos ya encontrados, " + rangos.size() + " rangos pendientes");
+        }
+        for (Range r : rangos) {
+            pendientes += r.size();
+        }
+        RangeScheduler scheduler = RangeScheduler.of(SCHEDULER, rangos, NTHREADS, minChunk);
+
+        for(int i = 0;i < NTHREADS; i++) {
+            pft[i] = new PrimeFinderThread(i, scheduler, checkpoint, primesCount, engine, minChunk, progress, seams); //Crear hilo con el planificador compartido
         }
-        pft[i] = new PrimeFinderThread(i*NDATA, MAXVALUE + 1, lock, primesCount, this); //Crear hilo e indicar rango de numeros a evaluar
+        this.metrics = new PrimeSearchMetrics(pft, pendientes, checkpoint);
     }
     
     //Metodo factory estatico
@@ -41,7 +82,13 @@ public class Control extends Thread {
 
     @Override
     public void run() {
-        //Poner en marcha los hilos
+        if ("count".equals(MODE)) {
+            contarPrimos();
+            return;
+        }
+
+        //Publicar las metricas y poner en marcha los hilos
+        metrics.register();
         for(int i = 0;i < NTHREADS;i++ ) {
             pft[i].start();
         }
@@ -55,17 +102,73 @@ public class Control extends Thread {
                 e.printStackTrace();
             }
 
-            //Pausar la ejecucion de los hilos
-            isPaused = true;
+            //Pausar la ejecucion de los hilos y esperar a que todos esten detenidos antes de imprimir
+            long latencia = checkpoint.pause();
             System.out.println("Numero de primos encontrados hasta ahora: " + primesCount.get());
+            System.out.printf("Hilos detenidos en %.3f ms%n", latencia / 1e6);
+            System.out.printf("Avance: %.1f%%, %.0f numeros/s, tiempo restante estimado: %.0f s%n",
+                    100 * metrics.getProgress(), metrics.getNumbersPerSecond(), metrics.getEtaSeconds());
+            if (progress != null) {
+                //Con los hilos detenidos el archivo queda consistente; se lleva a disco
+                System.out.printf("Progreso guardado en %.3f ms%n", progress.force() / 1e6);
+            }
             System.out.println("Presione Enter para continuar...");
             sc.nextLine();
 
             //Reanudar la ejecucion de los hilos
-            synchronized (lock) {
-                isPaused = false;
-                lock.notifyAll();
-            }
+            checkpoint.resume();
+        }
+
+        metrics.unregister();
+        reportarTiempos();
+
+        //Unir los resultados de todos los hilos en una sola vista ordenada
+        List<PrimeStore> stores = new ArrayList<>();
+        for (PrimeFinderThread t : pft) {
+            stores.add(t.getPrimeStore());
+        }
+        stores.add(resumed);
+        allPrimes = PrimeStore.merge(stores);
+
+        //Unir las estadisticas parciales con las diferencias entre bloques que seams fue completando
+        List<PrimeAnalytics> parciales = new ArrayList<>();
+        for (PrimeFinderThread t : pft) {
+            parciales.add(t.getAnalytics());
+        }
+        analytics = PrimeAnalytics.merge(parciales, seams);
+        if (ANALYTICS) {
+            reportarEstadisticas();
+        }
+
+        //Indice en disco para consultar isPrime / pi / nthPrime sin repetir la busqueda
+        if (INDEX != null) {
+            long inicio = System.nanoTime();
+            PrimeIndex.write(Path.of(INDEX), FROM, TO, allPrimes);
+            System.out.printf("Indice escrito en %s (%.3f ms)%n", INDEX, (System.nanoTime() - inicio) / 1e6);
+        }
+
+        if (progress != null) {
+            progress.close();
+        }
+    }
+
+    //Modo de solo conteo: pi(x) con Meissel-Lehmer, sin enumerar ni pausar. Admite rangos hasta
+    //PrimeCounter.MAX_X (10^14): la tabla de pi crece como x^(2/3)
+    private void contarPrimos() {
+        if (TO - 1 > PrimeCounter.MAX_X) {
+            System.out.println("El modo count admite rangos hasta " + PrimeCounter.MAX_X + " (to = " + TO + ")");
+            return;
+        }
+        long inicio = System.nanoTime();
+        long total = PrimeCounter.count(FROM, TO);
+        System.out.printf("Primos en [%d, %d): %d (Meissel-Lehmer, %.3f ms)%n", FROM, TO, total, (System.nanoTime() - inicio) / 1e6);
+
+        //En rangos pequeños se compara con la enumeracion de la criba
+        if (TO <= CROSS_CHECK_LIMIT) {
+            inicio = System.nanoTime();
+            long criba = PrimeStreams.stream(FROM, TO).parallel().count();
+            System.out.printf("Verificacion con la criba: %d (%s, %.3f ms)%n", criba, criba == total ? "coincide" : "NO coincide",
+                    (System.nanoTime() - inicio) / 1e6);
         }
     }
 
@@ -79,8 +182,69 @@ public class Control extends Thread {
         return false;
     }
 
+    //Imprime por hilo el tiempo ocupado y el tiempo inactivo (esperando a que terminen los demas)
+    private void reportarTiempos() {
+        long inicio = Long.MAX_VALUE, fin = Long.MIN_VALUE;
+        for (PrimeFinderThread t : pft) {
+            inicio = Math.min(inicio, t.getStartNanos());
+            fin = Math.max(fin, t.getEndNanos());
+        }
+        long total = fin - inicio;
+        long ocupadoTotal = 0;
+        for (PrimeFinderThread t : pft) {
+            ocupadoTotal += t.getBusyNanos();
+        }
+
+        System.out.println("Total de primos encontrados: " + primesCount.get());
+        System.out.printf("Tiempo total (%d hilos, %s, %s): %d ms%n", NTHREADS, SCHEDULER, engine.getClass().getSimpleName(), total / 1_000_000);
+        if (ocupadoTotal > 0) {
+            System.out.printf("Rendimiento: %.0f numeros/s por hilo ocupado%n", pendientes / (ocupadoTotal / 1e9));
+        }
+        if (progress != null && ocupadoTotal > 0) {
+            System.out.printf("Progreso: escritura %d ms (%.2f%% del tiempo ocupado), force %d ms, registros descartados %d%n",
+                    progress.getWriteNanos() / 1_000_000, 100.0 * progress.getWriteNanos() / ocupadoTotal,
+                    progress.getForceNanos() / 1_000_000, progress.getDropped());
+        }
+        for (int i = 0; i < NTHREADS; i++) {
+            long ocupado = pft[i].getBusyNanos();
+            long inactivo = total - ocupado - pft[i].getPausedNanos();
+            System.out.printf("  Hilo %d: ocupado %d ms, inactivo %d ms%n", i, ocupado / 1_000_000, inactivo / 1_000_000);
+        }
+    }
+
+    //Imprime el resumen de las estadisticas de los primos evaluados en esta ejecucion
+    private void reportarEstadisticas() {
+        System.out.printf("Pares gemelos: %d, pares a distancia 4: %d, mayor diferencia: %d%n",
+                analytics.twinPairs(), analytics.cousinPairs(), analytics.maxGap());
+        StringBuilder diferencias = new StringBuilder("Diferencias:");
+        for (int g = 1; g <= analytics.maxGap(); g++) {
+            if (analytics.gapCount(g) > 0) diferencias.append(' ').append(g).append('=').append(analytics.gapCount(g));
+        }
+        System.out.println(diferencias);
+        StringBuilder residuos = new StringBuilder("Residuos modulo " + PrimeAnalytics.MODULUS + ":");
+        for (int r = 0; r < PrimeAnalytics.MODULUS; r++) {
+            if (analytics.residueCount(r) > 0) residuos.append(' ').append(r).append('=').append(analytics.residueCount(r));
+        }
+        System.out.println(residuos);
+    }
+
+    //Estadisticas de los primos evaluados en esta ejecucion (vacias hasta que termina)
+    public PrimeAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    //Primos encontrados por todos los hilos, ordenados (vacio hasta que termina la ejecucion)
+    public PrimeStore getAllPrimes() {
+        return allPrimes;
+    }
+
     public boolean isPaused() {
-        return isPaused;
+        return checkpoint.isPaused();
+    }
+
+    //Tiempo (ns) que tomo la ultima pausa en dejar a todos los hilos detenidos
+    public long getLastPauseLatencyNanos() {
+        return checkpoint.getLastPauseNanos();
     }
     
-}
\ No newline at end of file
+}
@@ -0,0 +1,251 @@
+package co.eci.pathfinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Coordinador de una busqueda repartida entre varias JVM: divide el rango en arriendos (leases) de tamaño fijo
+//y los entrega por TCP a los RemoteWorker. Un arriendo que no se renueva antes de LEASE_TIMEOUT, o cuya conexion
+//se cae, vuelve a la cola y se entrega a otro trabajador; si llegan dos resultados del mismo tramo vale el primero
+public class Coordinator extends Thread {
+
+    private final static long FROM = Long.getLong("from", 0L); //Inicio del rango (inclusive)
+    private final static long TO = Long.getLong("to", 300000001L); //Fin del rango (exclusivo)
+    private final static int PORT = Integer.getInteger("port", 5050); //Puerto en el que escucha el coordinador
+    private final static long LEASE = Long.getLong("lease", 1L << 24); //Numeros por arriendo
+    private final static long LEASE_TIMEOUT = Long.getLong("leaseTimeout", 10000L); //Milisegundos sin renovar antes de reasignar
+    private final static long CHECK_PERIOD = Math.max(1L, LEASE_TIMEOUT / 4); //Milisegundos entre revisiones de vencimientos
+
+    private final long[] starts; //Inicio de cada tramo; el tramo i es [starts[i], starts[i+1])
+    private final boolean[] completed;
+    private final PrimeStore[] results;
+    private final ConcurrentLinkedDeque<Integer> pending = new ConcurrentLinkedDeque<>();
+    private final Map<Integer, Lease> leases = new ConcurrentHashMap<>(); //Tramos arrendados -> conexion y vencimiento
+    private final AtomicLong connectionIds = new AtomicLong(0);
+    private final CountDownLatch finished;
+
+    private final AtomicLong primesCount = new AtomicLong(0);
+    private final AtomicInteger reassigned = new AtomicInteger(0);
+    private final Map<String, long[]> workerStats = new ConcurrentHashMap<>(); //trabajador -> {numeros, primos, ocupadoNs}
+    private volatile long startNanos = 0;
+
+    //Un arriendo pertenece a la conexion que lo recibio: solo ella lo renueva o lo devuelve al caerse, asi una
+    //conexion vieja no toca el tramo despues de que vencio y se entrego a otra
+    private record Lease(long owner, long deadline) {}
+
+    private Coordinator() {
+        super();
+        int slots = (int) ((TO - FROM + LEASE - 1) / LEASE);
+        this.starts = new long[slots + 1];
+        for (int i = 0; i < slots; i++) {
+            starts[i] = FROM + i * LEASE;
+            pending.add(i);
+        }
+        starts[slots] = TO;
+        this.completed = new boolean[slots];
+        this.results = new PrimeStore[slots];
+        this.finished = new CountDownLatch(slots);
+    }
+
+    //Metodo factory estatico
+    public static Coordinator newCoordinator() {
+        return new Coordinator();
+    }
+
+    @Override
+    public void run() {
+        ServerSocket server;
+        try {
+            server = new ServerSocket(PORT, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir el puerto " + PORT + ": " + e.getMessage());
+            return;
+        }
+        System.out.printf("Coordinador en el puerto %d: %d arriendos de %d numeros sobre [%d, %d)%n", PORT, completed.length, LEASE, FROM, TO);
+        ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor();
+        reaper.scheduleAtFixedRate(this::reassignExpired, CHECK_PERIOD, CHECK_PERIOD, TimeUnit.MILLISECONDS);
+
+        //Aceptar trabajadores hasta terminar; cada conexion se atiende en su propio hilo virtual
+        Thread acceptor = Thread.ofVirtual().start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.submit(() -> serve(socket));
+                } catch (IOException e) {
+                    //Al cerrar el servidor es lo esperado; si no, se avisa y se sigue aceptando
+                    if (!server.isClosed()) System.out.println("Error aceptando un trabajador: " + e.getMessage());
+                }
+            }
+        });
+
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopAccepting(server, acceptor);
+            reaper.shutdownNow();
+            connections.shutdown();
+        }
+        reportar();
+    }
+
+    //Cerrar el servidor despierta al aceptador bloqueado en accept(); despues se espera a que termine
+    private static void stopAccepting(ServerSocket server, Thread acceptor) {
+        try {
+            server.close();
+            acceptor.join();
+        } catch (IOException e) {
+            System.out.println("Error cerrando el puerto: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Atiende a un trabajador: le entrega arriendos y recibe renovaciones y resultados
+    private void serve(Socket socket) {
+        String name = socket.getRemoteSocketAddress().toString();
+        long me = connectionIds.incrementAndGet();
+        Set<Integer> leased = new HashSet<>();
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                byte type = in.readByte();
+                if (type == LeaseProtocol.REQUEST) {
+                    Integer slot = nextSlot(me);
+                    if (slot != null) {
+                        leased.add(slot);
+                        out.writeByte(LeaseProtocol.LEASE);
+                        out.writeInt(slot);
+                        out.writeLong(starts[slot]);
+                        out.writeLong(starts[slot + 1]);
+                    } else if (finished.getCount() > 0) {
+                        //Todo esta arrendado pero falta que terminen: volver a preguntar despues
+                        out.writeByte(LeaseProtocol.WAIT);
+                        out.writeLong(CHECK_PERIOD);
+                    } else {
+                        out.writeByte(LeaseProtocol.DONE);
+                        out.flush();
+                        return;
+                    }
+                    out.flush();
+                } else if (type == LeaseProtocol.RENEW) {
+                    int slot = in.readInt();
+                    leases.computeIfPresent(slot, (k, lease) -> lease.owner() == me ? new Lease(me, deadline()) : lease);
+                } else if (type == LeaseProtocol.RESULT) {
+                    int slot = in.readInt();
+                    long count = in.readLong();
+                    long busy = in.readLong();
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    leased.remove(slot);
+                    complete(slot, count, LeaseProtocol.decode(data, count), busy, name);
+                } else {
+                    throw new IOException("Mensaje desconocido: " + type);
+                }
+            }
+        } catch (IOException e) {
+            //Conexion perdida (p. ej. el trabajador murio): una linea de aviso, sin traza; sus arriendos sin
+            //terminar vuelven a la cola, y los que ya vencieron los devolvio el revisor de vencimientos
+            System.out.printf("Trabajador %s desconectado (%s), arriendos sin terminar: %s%n", name,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), leased);
+            for (int slot : leased) {
+                Lease lease = leases.get(slot);
+                if (lease != null && lease.owner() == me && leases.remove(slot, lease)) {
+                    pending.addFirst(slot);
+                    reassigned.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Integer nextSlot(long owner) {
+        Integer slot;
+        while ((slot = pending.poll()) != null) {
+            synchronized (this) {
+                if (completed[slot]) continue;
+            }
+            if (startNanos == 0) startNanos = System.nanoTime();
+            leases.put(slot, new Lease(owner, deadline()));
+            return slot;
+        }
+        return null;
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LEASE_TIMEOUT);
+    }
+
+    private void complete(int slot, long count, PrimeStore primes, long busy, String worker) {
+        synchronized (this) {
+            if (completed[slot]) return; //Otro trabajador ya entrego este tramo
+            completed[slot] = true;
+            results[slot] = primes;
+        }
+        leases.remove(slot);
+        primesCount.addAndGet(count);
+        long[] stats = workerStats.computeIfAbsent(worker, k -> new long[3]);
+        synchronized (stats) {
+            stats[0] += starts[slot + 1] - starts[slot];
+            stats[1] += count;
+            stats[2] += busy;
+        }
+        finished.countDown();
+    }
+
+    //Los arriendos vencidos vuelven a la cola
+    private void reassignExpired() {
+        long now = System.nanoTime();
+        leases.forEach((slot, lease) -> {
+            if (lease.deadline() < now && leases.remove(slot, lease)) {
+                pending.addFirst(slot);
+                reassigned.incrementAndGet();
+            }
+        });
+    }
+
+    private void reportar() {
+        long total = System.nanoTime() - startNanos;
+        long ocupadoTotal = 0;
+        for (long[] s : workerStats.values()) ocupadoTotal += s[2];
+
+        System.out.println("Total de primos encontrados: " + primesCount.get());
+        System.out.printf("Tiempo total (%d trabajadores): %d ms, arriendos reasignados: %d%n", workerStats.size(), total / 1_000_000, reassigned.get());
+        System.out.printf("Rendimiento: %.0f numeros/s (%.0f numeros/s por hilo ocupado)%n",
+                (TO - FROM) / (total / 1e9), ocupadoTotal > 0 ? (TO - FROM) / (ocupadoTotal / 1e9) : 0.0);
+        workerStats.forEach((worker, s) -> System.out.printf("  Trabajador %s: %d numeros, %d primos, ocupado %d ms%n",
+                worker, s[0], s[1], s[2] / 1_000_000));
+    }
+
+    //Primos de todo el rango, ordenados (completo solo despues de terminar)
+    public PrimeStore getAllPrimes() {
+        List<PrimeStore> stores = new ArrayList<>();
+        synchronized (this) {
+            for (PrimeStore s : results) {
+                if (s != null) stores.add(s);
+            }
+        }
+        return PrimeStore.merge(stores);
+    }
+}
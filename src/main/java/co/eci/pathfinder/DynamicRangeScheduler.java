@@ -0,0 +1,51 @@
+package co.eci.pathfinder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Los hilos reclaman bloques de un cursor atomico compartido. El tamaño del bloque es adaptativo
+//(guided self-scheduling): una fraccion de lo que falta por repartir, nunca menor que minChunk,
+//asi al principio hay pocos reclamos grandes y al final bloques pequeños que equilibran la cola
+public class DynamicRangeScheduler implements RangeScheduler {
+
+    //Cada reclamo toma 1/(FACTOR * workers) de lo que falta
+    private static final int FACTOR = 4;
+
+    private final RangeList ranges;
+    private final int workers;
+    private final long minChunk;
+    //Posicion dentro del espacio continuo de la lista de rangos
+    private final AtomicLong cursor = new AtomicLong(0);
+
+    public DynamicRangeScheduler(long from, long to, int workers, long minChunk) {
+        this(new RangeList(List.of(new Range(from, to))), workers, minChunk);
+    }
+
+    public DynamicRangeScheduler(RangeList ranges, int workers, long minChunk) {
+        if (workers <= 0) throw new IllegalArgumentException("workers must be > 0");
+        if (minChunk <= 0) throw new IllegalArgumentException("minChunk must be > 0");
+        this.ranges = ranges;
+        this.workers = workers;
+        this.minChunk = minChunk;
+    }
+
+    @Override
+    public Range next(int worker) {
+        while (true) {
+            long start = cursor.get();
+            long remaining = ranges.total() - start;
+            if (remaining <= 0) return null;
+            //El bloque se recorta al final del rango real en que empieza
+            Range r = ranges.slice(start, start + Math.min(remaining, chunkFor(remaining)));
+            if (cursor.compareAndSet(start, start + r.size())) {
+                return r;
+            }
+        }
+    }
+
+    //Tamaño del bloque redondeado a un multiplo de minChunk (alineado con los segmentos del motor)
+    private long chunkFor(long remaining) {
+        long chunk = remaining / ((long) FACTOR * workers);
+        return Math.max(minChunk, chunk / minChunk * minChunk);
+    }
+}
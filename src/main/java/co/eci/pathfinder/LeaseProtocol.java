@@ -0,0 +1,53 @@
+package co.eci.pathfinder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+//Mensajes entre Coordinator y RemoteWorker (DataInput/DataOutput sobre TCP).
+//  trabajador -> coordinador: REQUEST | RENEW slot | RESULT slot numeros primos ocupadoNs bytes[]
+//  coordinador -> trabajador: LEASE slot from to | WAIT ms | DONE
+//Los primos de un RESULT van como el primero (long) y las diferencias (char), comprimidos con Deflater
+final class LeaseProtocol {
+
+    static final byte REQUEST = 1, RENEW = 2, RESULT = 3;
+    static final byte LEASE = 1, WAIT = 2, DONE = 3;
+
+    private LeaseProtocol() {}
+
+    static byte[] encode(PrimeStore primes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            PrimitiveIterator.OfLong it = primes.iterator();
+            if (it.hasNext()) {
+                long previous = it.nextLong();
+                out.writeLong(previous);
+                while (it.hasNext()) {
+                    long p = it.nextLong();
+                    out.writeChar((int) (p - previous));
+                    previous = p;
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static PrimeStore decode(byte[] data, long count) throws IOException {
+        PrimeStore.Builder out = new PrimeStore.Builder();
+        if (count == 0) return out.build();
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            long p = in.readLong();
+            out.add(p);
+            for (long k = 1; k < count; k++) {
+                p += in.readChar();
+                out.add(p);
+            }
+        }
+        return out.build();
+    }
+}
@@ -3,9 +3,12 @@ package co.eci.pathfinder;
 public class Main {
 
     public static void main(String[] args) {
-        Control control = Control.newControl();
-        
-        control.start();
+        //coordinator y worker reparten la busqueda entre varias JVM; cualquier otro modo corre en esta JVM
+        switch (System.getProperty("mode", "search")) {
+            case "coordinator" -> Coordinator.newCoordinator().start();
+            case "worker" -> RemoteWorker.newRemoteWorker().start();
+            default -> Control.newControl().start();
+        }
 
     }
 	
@@ -0,0 +1,70 @@
+package co.eci.pathfinder;
+
+import java.util.concurrent.Phaser;
+
+//Punto de control cooperativo para pausar y reanudar los hilos trabajadores.
+//Los hilos solo consultan una variable volatile entre bloques (sin monitor); cuando hay una pausa
+//pedida llegan a un Phaser en el que tambien participa el controlador, asi el controlador sabe
+//exactamente cuando todos se detuvieron y los libera a todos a la vez al reanudar.
+//Fase n: "todos detenidos"; fase n+1: "reanudar".
+public class PauseCheckpoint {
+
+    //Un participante para el controlador; cada hilo se registra aparte
+    private final Phaser phaser = new Phaser(1);
+
+    private volatile boolean pauseRequested = false;
+
+    //Ultimas latencias medidas (ns): desde pedir la pausa hasta que todos se detienen, y al reanudar
+    private volatile long lastPauseNanos = 0;
+    private volatile long lastResumeNanos = 0;
+
+    //Registra un hilo trabajador; debe hacerse antes de iniciarlo
+    public void register() {
+        phaser.register();
+    }
+
+    //El hilo trabajador termino: deja de contar para las pausas
+    public void deregister() {
+        phaser.arriveAndDeregister();
+    }
+
+    //Llamado por los hilos entre bloques. Retorna el tiempo (ns) que el hilo estuvo detenido
+    public long checkIn() {
+        if (!pauseRequested) return 0;
+        long start = System.nanoTime();
+        phaser.arriveAndAwaitAdvance(); //Avisar que este hilo se detuvo
+        phaser.arriveAndAwaitAdvance(); //Esperar a que el controlador reanude
+        return System.nanoTime() - start;
+    }
+
+    //Pide la pausa y retorna cuando todos los hilos registrados estan detenidos (o terminaron).
+    //Retorna el tiempo (ns) que tomo llegar a ese estado
+    public long pause() {
+        long start = System.nanoTime();
+        pauseRequested = true;
+        phaser.arriveAndAwaitAdvance();
+        lastPauseNanos = System.nanoTime() - start;
+        return lastPauseNanos;
+    }
+
+    //Reanuda a todos los hilos detenidos y retorna cuando todos fueron liberados
+    public long resume() {
+        long start = System.nanoTime();
+        pauseRequested = false;
+        phaser.arriveAndAwaitAdvance();
+        lastResumeNanos = System.nanoTime() - start;
+        return lastResumeNanos;
+    }
+
+    public boolean isPaused() {
+        return pauseRequested;
+    }
+
+    public long getLastPauseNanos() {
+        return lastPauseNanos;
+    }
+
+    public long getLastResumeNanos() {
+        return lastResumeNanos;
+    }
+}
@@ -0,0 +1,158 @@
+package co.eci.pathfinder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+//Estadisticas de los primos que encuentra un hilo, acumuladas a medida que el motor los entrega:
+//histograma de diferencias entre primos consecutivos, pares gemelos (diferencia 2), primos primos (diferencia 4)
+//y conteo por clase de residuo modulo MODULUS. La memoria no depende de cuantos primos ni de cuantos bloques haya.
+//
+//Las diferencias que cruzan el borde de un bloque no se conocen dentro del hilo (el bloque vecino puede ser de
+//otro hilo). Cada hilo solo guarda su bloque abierto: los bloques contiguos se le van sumando y, cuando el
+//siguiente no continua, el abierto se entrega a Seams (rango, primer y ultimo primo), que completa esas diferencias.
+public final class PrimeAnalytics implements LongConsumer {
+
+    //Modulo de las clases de residuo (2 * 3 * 5: incluye las clases modulo 2, 3, 5, 6, 10 y 15)
+    public static final int MODULUS = 30;
+
+    private long count;
+    private long[] gaps = new long[64]; //gaps[g]: cantidad de primos consecutivos a distancia g
+    private long twins, cousins;
+    private final long[] residues = new long[MODULUS];
+
+    //Etapa que recibe los bloques cerrados (null en los resultados ya unidos)
+    private final Seams seams;
+    //Bloque abierto y sus primos extremos (-1 si no hubo primos); to == -1 si no hay bloque abierto
+    private long from, to = -1, first = -1, last = -1;
+
+    public PrimeAnalytics(Seams seams) {
+        this.seams = seams;
+    }
+
+    //Estadisticas vacias
+    public static PrimeAnalytics empty() {
+        return new PrimeAnalytics(null);
+    }
+
+    //Empieza un bloque [from, to); los primos de accept() deben llegar en orden y dentro del bloque.
+    //Si continua al bloque abierto se le suma y la diferencia del borde sale directo en accept()
+    public void begin(long from, long to) {
+        if (this.to != from) {
+            finish();
+            this.from = from;
+            this.first = -1;
+            this.last = -1;
+        }
+        this.to = to;
+    }
+
+    @Override
+    public void accept(long p) {
+        count++;
+        residues[(int) (p % MODULUS)]++;
+        if (last >= 0) {
+            gap(p - last);
+        } else {
+            first = p;
+        }
+        last = p;
+    }
+
+    //Entrega el bloque abierto a la etapa de union; se llama al terminar el hilo
+    public void finish() {
+        if (to >= 0 && seams != null) seams.add(from, to, first, last);
+        to = -1;
+    }
+
+    private void gap(long g) {
+        if (g >= gaps.length) gaps = Arrays.copyOf(gaps, (int) Math.max(g + 1, 2L * gaps.length));
+        gaps[(int) g]++;
+        if (g == 2) twins++;
+        else if (g == 4) cousins++;
+    }
+
+    private void add(PrimeAnalytics a) {
+        count += a.count;
+        if (a.gaps.length > gaps.length) gaps = Arrays.copyOf(gaps, a.gaps.length);
+        for (int g = 0; g < a.gaps.length; g++) gaps[g] += a.gaps[g];
+        twins += a.twins;
+        cousins += a.cousins;
+        for (int r = 0; r < MODULUS; r++) residues[r] += a.residues[r];
+    }
+
+    //Une los parciales de varios hilos (ya terminados) con las diferencias entre bloques que completo seams
+    public static PrimeAnalytics merge(List<PrimeAnalytics> parts, Seams seams) {
+        PrimeAnalytics out = empty();
+        for (PrimeAnalytics a : parts) {
+            out.add(a);
+        }
+        synchronized (seams) {
+            out.add(seams.joined);
+        }
+        return out;
+    }
+
+    //Etapa de union de bordes, compartida por los hilos: recibe cada bloque cerrado, lo pega a sus vecinos ya
+    //recibidos y cuenta la diferencia de cada borde unido. Solo quedan los tramos que aun no tocan a otro (con
+    //reparto dinamico, mas o menos uno por hilo); si entre dos bloques falta un tramo (por ejemplo, lo ya
+    //evaluado antes de retomar) esa diferencia se omite
+    public static final class Seams {
+        private final TreeMap<Long, long[]> open = new TreeMap<>(); //inicio -> {fin, primer primo, ultimo primo}
+        private final PrimeAnalytics joined = empty(); //Solo las diferencias de los bordes
+
+        public synchronized void add(long from, long to, long first, long last) {
+            Map.Entry<Long, long[]> before = open.lowerEntry(from);
+            if (before != null && before.getValue()[0] == from) {
+                long[] b = open.remove(before.getKey());
+                if (b[2] >= 0 && first >= 0) joined.gap(first - b[2]);
+                from = before.getKey();
+                if (b[1] >= 0) first = b[1];
+                if (last < 0) last = b[2];
+            }
+            long[] after = open.remove(to);
+            if (after != null) {
+                if (last >= 0 && after[1] >= 0) joined.gap(after[1] - last);
+                to = after[0];
+                if (first < 0) first = after[1];
+                if (after[2] >= 0) last = after[2];
+            }
+            open.put(from, new long[]{to, first, last});
+        }
+    }
+
+    //Cantidad de primos
+    public long count() {
+        return count;
+    }
+
+    //Cantidad de primos consecutivos a distancia g
+    public long gapCount(int g) {
+        return g < gaps.length ? gaps[g] : 0;
+    }
+
+    //Mayor distancia entre primos consecutivos
+    public int maxGap() {
+        for (int g = gaps.length - 1; g > 0; g--) {
+            if (gaps[g] > 0) return g;
+        }
+        return 0;
+    }
+
+    //Pares (p, p + 2) de primos
+    public long twinPairs() {
+        return twins;
+    }
+
+    //Pares de primos consecutivos (p, p + 4); (3, 7) no cuenta porque 5 esta en medio
+    public long cousinPairs() {
+        return cousins;
+    }
+
+    //Cantidad de primos congruentes con r modulo MODULUS
+    public long residueCount(int r) {
+        return residues[r];
+    }
+}
@@ -0,0 +1,27 @@
+package co.eci.pathfinder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//Evento de JFR por cada bloque evaluado por un hilo (la duracion del evento es la del bloque)
+@Name("co.eci.pathfinder.Chunk")
+@Label("Prime Search Chunk")
+@Category("Pathfinder")
+@Description("Bloque del rango evaluado por un PrimeFinderThread")
+public class PrimeChunkEvent extends Event {
+
+    @Label("Worker")
+    int worker;
+
+    @Label("From")
+    long from;
+
+    @Label("To")
+    long to;
+
+    @Label("Primes")
+    long primes;
+}
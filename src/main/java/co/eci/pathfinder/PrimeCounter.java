@@ -0,0 +1,188 @@
+package co.eci.pathfinder;
+
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+//Cuenta pi(x) con la formula de Meissel-Lehmer sin enumerar los primos hasta x:
+//  pi(x) = phi(x, a) + a - 1 - P2(x, a),   a = pi(raiz3(x)),  b = pi(raiz(x))
+//  P2(x, a) = suma_{a < i <= b} [ pi(x / p_i) - (i - 1) ]
+//phi(x, a) (numeros <= x sin factores entre los a primeros primos) se expande como
+//phi(x, C) - suma_{C < i <= a} phi(x / p_i, i - 1) y cada termino se calcula en paralelo.
+//Los valores pi(y) necesarios (y < x^(2/3)) salen de una tabla de bits de impares con conteos acumulados.
+//La tabla ocupa unos x^(2/3) / 8 bytes, asi que x se limita a MAX_X (tabla de unos 270 MB).
+public final class PrimeCounter {
+
+    //Mayor x admitido: 10^14 (tabla de pi hasta ~2.2 * 10^9)
+    public static final long MAX_X = 100_000_000_000_000L;
+
+    //Hasta aqui se cuenta directamente con la criba
+    private static final long DIRECT_LIMIT = 1L << 20;
+    //phi(x, k) para k <= SMALL se obtiene de tablas periodicas de longitud p_1 * ... * p_k
+    private static final int SMALL = 6;
+    private static final int[] PRIMORIAL = {1, 2, 6, 30, 210, 2310, 30030};
+    private static final int[][] PHI_TABLE = new int[SMALL + 1][];
+
+    static {
+        int[] small = {2, 3, 5, 7, 11, 13};
+        for (int k = 0; k <= SMALL; k++) {
+            int[] t = new int[PRIMORIAL[k] + 1];
+            for (int r = 1; r <= PRIMORIAL[k]; r++) {
+                boolean coprime = true;
+                for (int j = 0; j < k && coprime; j++) coprime = r % small[j] != 0;
+                t[r] = t[r - 1] + (coprime ? 1 : 0);
+            }
+            PHI_TABLE[k] = t;
+        }
+    }
+
+    private final long x;
+    //Primos hasta raiz(x) (mas uno, para p_{a+1})
+    private final int[] primes;
+    private final PiTable pi;
+
+    private PrimeCounter(long x) {
+        this.x = x;
+        long root = isqrt(x);
+        long cube = icbrt(x);
+        int[] upToRoot = sievePrimes(root + 1000);
+        this.primes = upToRoot;
+        //Limite de la tabla: argumentos de P2 (x / p con p > raiz3(x)) y de los cortes de phi (y < p_{a+1}^2)
+        int a = countUpTo(upToRoot, cube);
+        long next = upToRoot[a];
+        this.pi = new PiTable(Math.max(x / (cube + 1), next * next) + 1);
+    }
+
+    //pi(x): cantidad de primos <= x, para x <= MAX_X
+    public static long pi(long x) {
+        if (x > MAX_X) throw new IllegalArgumentException("x too large for the pi table (max " + MAX_X + "): " + x);
+        if (x < 2) return 0;
+        if (x <= DIRECT_LIMIT) {
+            long[] count = {0};
+            new SegmentedSieveEngine(x).scan(0, x + 1, p -> count[0]++);
+            return count[0];
+        }
+        return new PrimeCounter(x).count();
+    }
+
+    //Cantidad de primos en [from, to), con to - 1 <= MAX_X
+    public static long count(long from, long to) {
+        return from >= to ? 0 : pi(to - 1) - pi(from - 1);
+    }
+
+    private long count() {
+        int a = countUpTo(primes, icbrt(x));
+        int b = countUpTo(primes, isqrt(x));
+
+        //phi(x, a) con los terminos de primer nivel en paralelo
+        long phi = phiSmall(x, Math.min(a, SMALL));
+        if (a > SMALL) {
+            phi -= IntStream.rangeClosed(SMALL + 1, a).parallel()
+                    .mapToLong(i -> phi(x / primes[i - 1], i - 1))
+                    .sum();
+        }
+
+        long p2 = LongStream.rangeClosed(a + 1, b).parallel()
+                .map(i -> pi.pi(x / primes[(int) i - 1]) - (i - 1))
+                .sum();
+
+        return phi + a - 1 - p2;
+    }
+
+    private long phi(long y, int a) {
+        if (a <= SMALL) return phiSmall(y, a);
+        if (y <= primes[a - 1]) return y >= 1 ? 1 : 0;
+        long next = primes[a];
+        //Si y < p_{a+1}^2 los unicos numeros sin factores pequeños son 1 y los primos en (p_a, y]
+        if (y < next * next) return pi.pi(y) - a + 1;
+        long result = phiSmall(y, SMALL);
+        for (int i = SMALL + 1; i <= a; i++) {
+            long q = y / primes[i - 1];
+            if (q == 0) break;
+            result -= phi(q, i - 1);
+        }
+        return result;
+    }
+
+    private static long phiSmall(long y, int k) {
+        int period = PRIMORIAL[k];
+        int[] t = PHI_TABLE[k];
+        return (y / period) * t[period] + t[(int) (y % period)];
+    }
+
+    private static int countUpTo(int[] sorted, long limit) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= limit) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int[] sievePrimes(long limit) {
+        PrimeStreams.LongBuffer buffer = new PrimeStreams.LongBuffer();
+        new SegmentedSieveEngine(limit).scan(0, limit + 1, buffer);
+        int[] out = new int[buffer.size];
+        for (int i = 0; i < out.length; i++) out[i] = (int) buffer.values[i];
+        return out;
+    }
+
+    static long isqrt(long n) {
+        long r = (long) Math.sqrt((double) n);
+        while (r * r > n) r--;
+        while ((r + 1) * (r + 1) <= n) r++;
+        return r;
+    }
+
+    static long icbrt(long n) {
+        long r = (long) Math.cbrt((double) n);
+        while (r * r * r > n) r--;
+        while ((r + 1) * (r + 1) * (r + 1) <= n) r++;
+        return r;
+    }
+
+    //Tabla de pi(y) para y < limit: un bit por impar (1 = primo) y el conteo acumulado antes de cada palabra.
+    //Se llena en paralelo, con cada parte alineada a palabras para que dos hilos no escriban la misma
+    static final class PiTable {
+        //Numeros cubiertos por cada palabra de 64 bits (solo impares)
+        private static final int SPAN = 128;
+
+        private final long limit;
+        private final long[] bits;
+        private final long[] before;
+
+        PiTable(long limit) {
+            long size = (limit + SPAN - 1) / SPAN;
+            if (size >= Integer.MAX_VALUE) throw new IllegalArgumentException("pi table too large: " + limit);
+            this.limit = limit;
+            int words = (int) size;
+            this.bits = new long[words];
+            this.before = new long[words + 1];
+            SegmentedSieveEngine engine = new SegmentedSieveEngine(limit);
+            int parts = Math.max(1, Math.min(words, 4 * Runtime.getRuntime().availableProcessors()));
+            int wordsPerPart = (words + parts - 1) / parts;
+            IntStream.range(0, parts).parallel().forEach(part -> {
+                long from = (long) part * wordsPerPart * SPAN;
+                long to = Math.min(limit, (long) (part + 1) * wordsPerPart * SPAN);
+                if (from < to) {
+                    engine.scan(from, to, p -> {
+                        if (p != 2) bits[(int) (p / SPAN)] |= 1L << ((p % SPAN) >>> 1);
+                    });
+                }
+            });
+            for (int w = 0; w < words; w++) {
+                before[w + 1] = before[w] + Long.bitCount(bits[w]);
+            }
+        }
+
+        //pi(y) para 0 <= y < limit
+        long pi(long y) {
+            if (y < 2) return 0;
+            if (y >= limit) throw new IllegalArgumentException("y fuera de la tabla: " + y);
+            int w = (int) (y / SPAN);
+            int n = (int) ((y % SPAN + 1) >>> 1); //Bits de la palabra que representan impares <= y
+            long mask = n == 64 ? -1L : (1L << n) - 1;
+            return 1 + before[w] + Long.bitCount(bits[w] & mask);
+        }
+    }
+}
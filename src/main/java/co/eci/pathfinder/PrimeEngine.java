@@ -0,0 +1,56 @@
+package co.eci.pathfinder;
+
+import java.util.function.LongConsumer;
+
+//Motor de primalidad intercambiable que usan los PrimeFinderThread
+public interface PrimeEngine {
+
+    //Con "auto" se usa la criba si la ventana mide al menos raiz(to) / SIEVE_RATIO, para que el calculo de los
+    //primos base se amortice (una prueba de Miller-Rabin cuesta del orden de 30 veces mas que criba raiz(to) por numero),
+    //y raiz(to) no supera MAX_SIEVE_ROOT (memoria de los primos base); si no, Miller-Rabin
+    int SIEVE_RATIO = 16;
+    long MAX_SIEVE_ROOT = 1L << 26;
+    //Segmento maximo de la criba para rangos altos (cache L2)
+    int MAX_SEGMENT_BYTES = 1 << 20;
+
+    //Evalua el rango [from, to) y entrega cada primo encontrado al consumidor, en orden ascendente
+    void scan(long from, long to, LongConsumer sink);
+
+    //Cantidad de numeros que el motor procesa de una vez (entre dos verificaciones de pausa)
+    int blockSize();
+
+    //Tamaño de bloque de trabajo de al menos minChunk numeros, alineado con el bloque del motor
+    //para no partir segmentos de la criba
+    default int chunkSize(int minChunk) {
+        int block = blockSize();
+        return Math.max(1, minChunk / block) * block;
+    }
+
+    //Metodo factory estatico para evaluar [from, to): "auto", "sieve" (criba segmentada),
+    //"millerrabin" o "trial" (division por tentativa)
+    static PrimeEngine of(String name, long from, long to) {
+        switch (name) {
+            case "auto":
+                return forRange(from, to);
+            case "trial":
+                return new TrialDivisionEngine();
+            case "millerrabin":
+                return new MillerRabinEngine();
+            case "sieve":
+                return new SegmentedSieveEngine(to - 1);
+            default:
+                throw new IllegalArgumentException("Motor de primalidad desconocido: " + name);
+        }
+    }
+
+    //Elige el motor segun la densidad del rango. En rangos altos la criba usa segmentos mas grandes
+    //(hasta raiz(to) numeros, sin pasar de la L2) para que cada primo base tache al menos una vez por segmento
+    static PrimeEngine forRange(long from, long to) {
+        double root = Math.sqrt((double) to);
+        if (root <= MAX_SIEVE_ROOT && to - from >= root / SIEVE_RATIO) {
+            int segment = Integer.highestOneBit((int) Math.min(MAX_SEGMENT_BYTES, root / 30) | 1);
+            return new SegmentedSieveEngine(to - 1, Math.max(SegmentedSieveEngine.DEFAULT_SEGMENT_BYTES, segment));
+        }
+        return new MillerRabinEngine();
+    }
+}
@@ -1,73 +1,201 @@
 package co.eci.pathfinder;
 
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 public class PrimeFinderThread extends Thread{
 
-	//Rango de numeros a evaluar
-	int a,b;
-	//Lista de numeros primos encontrados
-	private List<Integer> primes;
-    //Objeto para sincronizacion de hilos
-    private Object lock;
+	//Identificador del hilo dentro del planificador
+	private final int id;
+	//Planificador que entrega los rangos a evaluar
+	private final RangeScheduler scheduler;
+	//Numeros primos encontrados, en formato compacto (sin objetos por primo)
+	private PrimeStore.Builder primes;
+    //Punto de control para las pausas, consultado solo entre bloques
+    private PauseCheckpoint checkpoint;
     //Contador atomico para el numero de primos encontrados
-    private AtomicInteger primesCount;
-    //Referencia al controlador de los hilos
-    private Control control;
-	
-	public PrimeFinderThread(int a, int b, Object lock, AtomicInteger primesCount, Control control) {
+    private AtomicLong primesCount;
+    //Motor de primalidad utilizado para evaluar el rango
+    private PrimeEngine engine;
+    //Cantidad de numeros evaluados entre dos consultas al punto de control
+    private final int chunk;
+    //Escritor del archivo de progreso (null si no se guarda progreso)
+    private final ProgressFile.Writer progress;
+    //Destino de los primos que entrega el motor
+    private final LongConsumer sink;
+    //Estadisticas parciales de los primos de este hilo (diferencias, gemelos, residuos)
+    private final PrimeAnalytics analytics;
+
+    //Tiempos medidos (nanosegundos): inicio, fin, trabajo efectivo y tiempo en pausa
+    private volatile long startNanos, endNanos;
+    private volatile long busyNanos, pausedNanos;
+    //Inicio de la pausa en curso (0 si no esta pausado); se cambia junto con pausedNanos bajo pauseLock
+    private long pauseStart;
+    private final Object pauseLock = new Object();
+    //Contadores propios del hilo (solo el los escribe, una vez por bloque): numeros evaluados,
+    //primos encontrados y posicion actual en el rango
+    private volatile long tested, found, position;
+
+	public PrimeFinderThread(int id, RangeScheduler scheduler, PauseCheckpoint checkpoint, AtomicLong primesCount, PrimeEngine engine, int chunk) {
+        this(id, scheduler, checkpoint, primesCount, engine, chunk, null);
+	}
+
+	public PrimeFinderThread(int id, RangeScheduler scheduler, PauseCheckpoint checkpoint, AtomicLong primesCount, PrimeEngine engine, int chunk, ProgressFile progress) {
+        this(id, scheduler, checkpoint, primesCount, engine, chunk, progress, new PrimeAnalytics.Seams());
+	}
+
+	//seams: etapa compartida que une los bordes de los bloques de todos los hilos para las estadisticas
+	public PrimeFinderThread(int id, RangeScheduler scheduler, PauseCheckpoint checkpoint, AtomicLong primesCount, PrimeEngine engine, int chunk, ProgressFile progress, PrimeAnalytics.Seams seams) {
         super();
-        this.primes = new LinkedList<>();
-		this.a = a;
-		this.b = b;
-        this.lock = lock;
+        if (chunk <= 0) throw new IllegalArgumentException("chunk must be > 0");
+        this.primes = new PrimeStore.Builder();
+        this.id = id;
+        this.scheduler = scheduler;
+        this.checkpoint = checkpoint;
         this.primesCount = primesCount;
-        this.control = control;
+        this.engine = engine;
+        this.chunk = chunk;
+        this.progress = progress == null ? null : progress.newWriter();
+        this.analytics = new PrimeAnalytics(seams);
+        PrimeStore.Builder store = this.primes;
+        ProgressFile.Writer writer = this.progress;
+        PrimeAnalytics stats = this.analytics;
+        this.sink = writer == null ? p -> {
+            store.add(p);
+            stats.accept(p);
+        } : p -> {
+            store.add(p);
+            stats.accept(p);
+            writer.add(p);
+        };
+        checkpoint.register(); //Registrar antes de iniciar para que cuente en la primera pausa
 	}
 
     @Override
 	public void run(){
+        startNanos = System.nanoTime();
 
-        //Evaluar numeros en el rango indicado
-        for (int i= a;i < b;i++){	
-            
-            //Verificar si esta pausado
-            synchronized (lock){
-                while(control.isPaused()){
-                    try {
-                        lock.wait(); //Esperar a que se reanude la ejecucion
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
+        try {
+            //Pedir rangos al planificador hasta que no quede trabajo
+            Range range;
+            while ((range = scheduler.next(id)) != null) {
+                long rangeStart = System.nanoTime();
+                long pausedBefore = pausedNanos;
+                evaluate(range);
+                busyNanos += System.nanoTime() - rangeStart - (pausedNanos - pausedBefore);
             }
+            analytics.finish();
+        } finally {
+            endNanos = System.nanoTime();
+            checkpoint.deregister();
+        }
+    }
+
+    //Evaluar el rango por bloques, verificando la pausa solo entre bloques
+    private void evaluate(Range range) {
+        for (long i = range.from(); i < range.to(); i += chunk){
 
-            //Si un numero es primo, agregarlo a la lista			
-            if (isPrime(i)){
-                primes.add(i);
-                primesCount.incrementAndGet();
+            //Verificar si esta pausado (una lectura volatile si no hay pausa pedida)
+            if (checkpoint.isPaused()) {
+                pause();
+            }
+
+            //Cada primo del bloque se agrega al almacen; el contador global se actualiza una vez por bloque,
+            //antes del siguiente punto de control, para que el controlador vea un total consistente
+            long end = Math.min(i + chunk, range.to());
+            long before = primes.size();
+            PrimeChunkEvent event = new PrimeChunkEvent();
+            event.begin();
+            analytics.begin(i, end);
+            engine.scan(i, end, sink);
+            long foundInChunk = primes.size() - before;
+            primesCount.addAndGet(foundInChunk);
+            tested += end - i;
+            found += foundInChunk;
+            position = end;
+            if (event.shouldCommit()) {
+                event.worker = id;
+                event.from = i;
+                event.to = end;
+                event.primes = foundInChunk;
+                event.commit();
+            }
+
+            //Registrar el bloque como terminado en el archivo de progreso
+            if (progress != null) {
+                progress.commit(i, end);
             }
         }
     }
 
+    //Detenerse en el punto de control. El inicio queda registrado al empezar la pausa, asi getPausedNanos
+    //cuenta tambien la pausa en curso (el controlador consulta las metricas con los hilos detenidos)
+    private void pause() {
+        long start = System.nanoTime();
+        synchronized (pauseLock) {
+            pauseStart = start;
+        }
+        checkpoint.checkIn();
+        long end = System.nanoTime();
+        synchronized (pauseLock) {
+            pausedNanos += end - start;
+            pauseStart = 0;
+        }
+    }
+
     //Metodo para determinar si un numero es primo
 	boolean isPrime(int n) {
-	    boolean ans;
-            if (n > 2) { 
-                ans = n%2 != 0;
-                for(int i = 3;ans && i*i <= n; i+=2 ) {
-                    ans = n % i != 0;
-                }
-            } else {
-                ans = n == 2;
-            }
-	    return ans;
+	    return TrialDivisionEngine.isPrime(n);
 	}
 
+	//Vista de solo lectura de los primos encontrados (los valores se encajonan solo al leerlos).
+	//Solo sirve para rangos de int; para rangos de 64 bits usar getPrimeStore()
 	public List<Integer> getPrimes() {
-		return primes;
+		return primes.build().asIntList();
 	}
+
+	//Primos encontrados por este hilo, ordenados y sin encajonar
+	public PrimeStore getPrimeStore() {
+		return primes.build();
+	}
+
+    //Estadisticas parciales de este hilo; se unen con PrimeAnalytics.merge y los bordes de su Seams al terminar
+    public PrimeAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    //Tiempo total (ns) evaluando numeros, sin contar pausas
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    //Tiempo total (ns) detenido por pausas del controlador, incluida la pausa en curso
+    public long getPausedNanos() {
+        synchronized (pauseLock) {
+            return pauseStart == 0 ? pausedNanos : pausedNanos + System.nanoTime() - pauseStart;
+        }
+    }
+
+    public long getNumbersTested() {
+        return tested;
+    }
+
+    public long getPrimesFound() {
+        return found;
+    }
+
+    //Ultimo numero (exclusivo) evaluado por el hilo
+    public long getPosition() {
+        return position;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getEndNanos() {
+        return endNanos;
+    }
 	
-}
\ No newline at end of file
+}
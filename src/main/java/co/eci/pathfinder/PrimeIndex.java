@@ -0,0 +1,221 @@
+package co.eci.pathfinder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.PrimitiveIterator;
+
+//Indice de primos en disco para consultas isPrime / pi / nthPrime sin cargarlo en el heap.
+//Un bit por cada impar del rango mas un directorio de rangos: un long acumulado cada 4 KB de bits (superbloque)
+//y un char relativo cada 64 bytes (bloque, una linea de cache). pi(x) lee a lo sumo 8 palabras;
+//nthPrime(k) hace busqueda binaria sobre el directorio. Se lee con accesos absolutos, asi que es seguro entre hilos.
+//
+//Formato (little endian): encabezado | palabras de bits | superbloques (long) | bloques (char).
+//El bit i de la palabra w representa al impar base + 2 * (64 * w + i) + 1, con base = from redondeado a par.
+public final class PrimeIndex {
+
+    private static final int MAGIC = 0x50495831; //"PIX1"
+    private static final int HEADER_BYTES = 64;
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int WORDS_PER_SUPER = 512;
+
+    private final MappedByteBuffer buffer;
+    private final long from, to, base;
+    private final long before; //pi(from - 1): primos anteriores al rango
+    private final long total; //primos en [from, to)
+    private final boolean two; //2 esta en el rango (no tiene bit por ser par)
+    private final long words;
+    private final int superStart, blockStart;
+
+    private PrimeIndex(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.from = buffer.getLong(8);
+        this.to = buffer.getLong(16);
+        this.base = buffer.getLong(24);
+        this.words = buffer.getLong(32);
+        this.before = buffer.getLong(40);
+        this.total = buffer.getLong(48);
+        this.two = buffer.getInt(56) != 0;
+        this.superStart = (int) (HEADER_BYTES + 8 * words);
+        this.blockStart = (int) (superStart + 8 * ((words + WORDS_PER_SUPER - 1) / WORDS_PER_SUPER));
+    }
+
+    //Escribe el indice de [from, to) a partir de sus primos (por ejemplo Control.getAllPrimes())
+    public static void write(Path path, long from, long to, PrimeStore primes) {
+        long base = from & ~1L;
+        long words = ((to - base) / 2 + 63) / 64;
+        long supers = (words + WORDS_PER_SUPER - 1) / WORDS_PER_SUPER;
+        long blocks = (words + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK;
+        long size = HEADER_BYTES + 8 * words + 8 * supers + 2 * blocks;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Rango demasiado grande para un indice: [" + from + ", " + to + ")");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            //Bits: los primos llegan ordenados, asi que cada palabra se arma en un registro y se escribe una vez
+            boolean two = false;
+            long total = 0, word = 0, current = 0;
+            PrimitiveIterator.OfLong it = primes.iterator();
+            while (it.hasNext()) {
+                long p = it.nextLong();
+                if (p < from || p >= to) continue;
+                total++;
+                if (p == 2) {
+                    two = true;
+                    continue;
+                }
+                long bit = (p - base - 1) >>> 1;
+                if (bit >>> 6 != current) {
+                    buffer.putLong(HEADER_BYTES + 8 * (int) current, word);
+                    current = bit >>> 6;
+                    word = 0;
+                }
+                word |= 1L << bit;
+            }
+            if (words > 0) buffer.putLong(HEADER_BYTES + 8 * (int) current, word);
+
+            //Directorio: acumulado absoluto por superbloque y relativo al superbloque por bloque
+            int superStart = (int) (HEADER_BYTES + 8 * words);
+            int blockStart = (int) (superStart + 8 * supers);
+            long acumulado = 0;
+            int relativo = 0;
+            for (int w = 0; w < words; w++) {
+                if (w % WORDS_PER_SUPER == 0) {
+                    buffer.putLong(superStart + 8 * (w / WORDS_PER_SUPER), acumulado);
+                    relativo = 0;
+                }
+                if (w % WORDS_PER_BLOCK == 0) {
+                    buffer.putChar(blockStart + 2 * (w / WORDS_PER_BLOCK), (char) relativo);
+                }
+                int bits = Long.bitCount(buffer.getLong(HEADER_BYTES + 8 * w));
+                acumulado += bits;
+                relativo += bits;
+            }
+
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(8, from);
+            buffer.putLong(16, to);
+            buffer.putLong(24, base);
+            buffer.putLong(32, words);
+            buffer.putLong(40, PrimeCounter.pi(from - 1));
+            buffer.putLong(48, total);
+            buffer.putInt(56, two ? 1 : 0);
+            buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Mapea un indice existente en modo lectura; el archivo no se copia al heap
+    public static PrimeIndex open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Indice demasiado grande: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("No es un indice de primos: " + path);
+            }
+            return new PrimeIndex(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long from() {
+        return from;
+    }
+
+    public long to() {
+        return to;
+    }
+
+    //Cantidad de primos en [from, to)
+    public long size() {
+        return total;
+    }
+
+    public boolean isPrime(long n) {
+        check(n, from, to);
+        if (n == 2) return two;
+        if ((n & 1) == 0) return false;
+        long bit = (n - base - 1) >>> 1;
+        return (word(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    //pi(x): cantidad de primos <= x, para from - 1 <= x < to
+    public long pi(long x) {
+        check(x, from - 1, to);
+        return before + (two && x >= 2 ? 1 : 0) + rank((x - base + 1) >>> 1);
+    }
+
+    //El k-esimo primo (pi(p) = k), para pi(from - 1) < k <= pi(to - 1)
+    public long nthPrime(long k) {
+        if (k <= before || k > before + total) {
+            throw new IllegalArgumentException("El primo " + k + " no esta en el indice [" + from + ", " + to + ")");
+        }
+        long r = k - before;
+        if (two) {
+            if (r == 1) return 2;
+            r--;
+        }
+
+        //Ultimo superbloque con menos de r bits antes; luego el ultimo bloque dentro de el
+        long lo = 0, hi = (words - 1) / WORDS_PER_SUPER;
+        while (lo < hi) {
+            long mid = (lo + hi + 1) >>> 1;
+            if (buffer.getLong(superStart + 8 * (int) mid) < r) lo = mid;
+            else hi = mid - 1;
+        }
+        r -= buffer.getLong(superStart + 8 * (int) lo);
+        long firstBlock = lo * (WORDS_PER_SUPER / WORDS_PER_BLOCK);
+        long lastBlock = Math.min(firstBlock + WORDS_PER_SUPER / WORDS_PER_BLOCK, (words + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK) - 1;
+        long b = firstBlock;
+        while (b < lastBlock && buffer.getChar(blockStart + 2 * (int) (b + 1)) < r) b++;
+        r -= buffer.getChar(blockStart + 2 * (int) b);
+
+        //Recorrer las palabras del bloque y seleccionar el bit dentro de la ultima
+        long w = b * WORDS_PER_BLOCK;
+        long word = word(w);
+        int bits;
+        while ((bits = Long.bitCount(word)) < r) {
+            r -= bits;
+            word = word(++w);
+        }
+        for (; r > 1; r--) {
+            word &= word - 1;
+        }
+        long bit = 64 * w + Long.numberOfTrailingZeros(word);
+        return base + 2 * bit + 1;
+    }
+
+    //Cantidad de bits encendidos en [0, bits)
+    private long rank(long bits) {
+        long w = bits >>> 6;
+        if (w >= words) return total - (two ? 1 : 0);
+        long count = buffer.getLong(superStart + 8 * (int) (w / WORDS_PER_SUPER))
+                + buffer.getChar(blockStart + 2 * (int) (w / WORDS_PER_BLOCK));
+        for (long i = w & -WORDS_PER_BLOCK; i < w; i++) {
+            count += Long.bitCount(word(i));
+        }
+        return count + Long.bitCount(word(w) & ((1L << bits) - 1));
+    }
+
+    private long word(long w) {
+        return buffer.getLong(HEADER_BYTES + 8 * (int) w);
+    }
+
+    private void check(long n, long lo, long hi) {
+        if (n < lo || n >= hi) {
+            throw new IllegalArgumentException(n + " esta fuera del indice [" + from + ", " + to + ")");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package co.eci.pathfinder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+//Evento periodico de JFR con el avance global de la busqueda
+@Name("co.eci.pathfinder.Progress")
+@Label("Prime Search Progress")
+@Category("Pathfinder")
+@Description("Avance global de la busqueda de primos")
+@Period("1 s")
+public class PrimeProgressEvent extends Event {
+
+    @Label("Numbers Tested")
+    long numbersTested;
+
+    @Label("Numbers Total")
+    long numbersTotal;
+
+    @Label("Primes Found")
+    long primesFound;
+
+    @Label("Numbers Per Second")
+    double numbersPerSecond;
+
+    @Label("ETA Seconds")
+    double etaSeconds;
+}
@@ -0,0 +1,159 @@
+package co.eci.pathfinder;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Publicador frio de lotes de primos (ver PrimeStreams). El rango se divide en bloques numerados; se envian
+//a evaluar al executor como maximo min(lotes pedidos y no entregados, MAX_IN_FLIGHT) bloques a la vez (uno, si
+//ya se pidio algo y la demanda se agoto), asi que la memoria queda acotada por la demanda pendiente. Las señales
+//al suscriptor las emite un solo hilo a la vez (ciclo drain con contador wip); los bloques sin primos no se
+//emiten ni consumen demanda, y se descartan aunque no haya demanda para que onComplete no quede esperando
+final class PrimePublisher implements Flow.Publisher<long[]> {
+
+    private static final int MAX_IN_FLIGHT = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final long from, to;
+    private final Executor executor;
+    private final boolean ordered;
+
+    PrimePublisher(long from, long to, Executor executor, boolean ordered) {
+        if (from > to) throw new IllegalArgumentException("from must be <= to");
+        this.from = from;
+        this.to = to;
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.ordered = ordered;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super long[]> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        PrimeEngine engine = PrimeEngine.forRange(from, to);
+        Search search = new Search(subscriber, engine, engine.chunkSize(PrimeStreams.MIN_CHUNK));
+        subscriber.onSubscribe(search);
+        search.drain();
+    }
+
+    private final class Search implements Flow.Subscription {
+        private final Flow.Subscriber<? super long[]> subscriber;
+        private final PrimeEngine engine;
+        private final int chunk;
+        private final long chunks;
+
+        private final AtomicLong requested = new AtomicLong(0);
+        private final AtomicInteger wip = new AtomicInteger(0);
+        //Ordenado: resultados por posicion (bloque % MAX_IN_FLIGHT). Sin orden: cola de resultados listos
+        private final AtomicReferenceArray<long[]> slots = new AtomicReferenceArray<>(MAX_IN_FLIGHT);
+        private final ConcurrentLinkedQueue<long[]> ready = new ConcurrentLinkedQueue<>();
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private volatile boolean started; //Ya hubo un request valido
+
+        //Solo los modifica el hilo que esta dentro de drain()
+        private long submitted = 0, emitted = 0;
+        private boolean done = false;
+
+        Search(Flow.Subscriber<? super long[]> subscriber, PrimeEngine engine, int chunk) {
+            this.subscriber = subscriber;
+            this.engine = engine;
+            this.chunk = chunk;
+            this.chunks = (to - from + chunk - 1) / chunk;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Flow.Subscription.request: n must be > 0 (was " + n + ")");
+            } else {
+                requested.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                started = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        //Emite lo que este listo y haya sido pedido, y envia a evaluar mas bloques si la demanda lo permite
+        void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                if (done || cancelled) return;
+                if (error != null) {
+                    done = true;
+                    subscriber.onError(error);
+                    return;
+                }
+
+                //Solo onNext espera demanda; un bloque vacio se descarta siempre
+                long[] batch;
+                while ((batch = peek()) != null) {
+                    if (batch.length > 0) {
+                        if (requested.get() == 0) break;
+                        requested.decrementAndGet();
+                    }
+                    take();
+                    emitted++;
+                    if (batch.length > 0) {
+                        subscriber.onNext(batch);
+                        if (cancelled) return;
+                    }
+                }
+                if (emitted == chunks) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                }
+
+                //Sin demanda se sigue evaluando un bloque adelante: si los que faltan no tienen primos, se llega a
+                //onComplete sin esperar otro request
+                long window = Math.min(MAX_IN_FLIGHT, Math.max(requested.get(), started ? 1 : 0));
+                while (submitted < chunks && submitted - emitted < window) {
+                    submit(submitted++);
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        //Siguiente lote listo, sin quitarlo
+        private long[] peek() {
+            return ordered ? slots.get((int) (emitted % MAX_IN_FLIGHT)) : ready.peek();
+        }
+
+        //Quita el lote que devolvio peek()
+        private void take() {
+            if (ordered) {
+                slots.set((int) (emitted % MAX_IN_FLIGHT), null);
+            } else {
+                ready.poll();
+            }
+        }
+
+        private void submit(long index) {
+            long start = from + index * chunk;
+            long end = Math.min(to, start + chunk);
+            executor.execute(() -> {
+                if (cancelled) return;
+                try {
+                    long[] primes = PrimeStreams.scanChunk(engine, start, end);
+                    if (ordered) {
+                        slots.set((int) (index % MAX_IN_FLIGHT), primes);
+                    } else {
+                        ready.add(primes);
+                    }
+                } catch (Throwable t) {
+                    error = t;
+                }
+                drain();
+            });
+        }
+    }
+}
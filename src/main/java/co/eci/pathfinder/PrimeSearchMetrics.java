@@ -0,0 +1,151 @@
+package co.eci.pathfinder;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.FlightRecorder;
+
+//Agrega los contadores de cada PrimeFinderThread. Cada hilo es el unico que escribe sus propios contadores
+//(una escritura volatile por bloque), asi que leerlos no genera contencion en el ciclo de trabajo.
+//Se publica como MBean y como evento periodico de JFR
+public class PrimeSearchMetrics implements PrimeSearchMetricsMXBean {
+
+    private static final String OBJECT_NAME = "co.eci.pathfinder:type=PrimeSearch";
+
+    private final PrimeFinderThread[] workers;
+    private final long total;
+    private final PauseCheckpoint checkpoint;
+    private final Runnable periodic = this::emitProgressEvent;
+
+    public PrimeSearchMetrics(PrimeFinderThread[] workers, long total, PauseCheckpoint checkpoint) {
+        this.workers = workers;
+        this.total = total;
+        this.checkpoint = checkpoint;
+    }
+
+    //Registra el MBean y el evento periodico de JFR
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo registrar el MBean " + OBJECT_NAME, e);
+        }
+        FlightRecorder.addPeriodicEvent(PrimeProgressEvent.class, periodic);
+    }
+
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            //Ya no estaba registrado
+        }
+        FlightRecorder.removePeriodicEvent(periodic);
+    }
+
+    @Override
+    public long getNumbersTotal() {
+        return total;
+    }
+
+    @Override
+    public long getNumbersTested() {
+        long sum = 0;
+        for (PrimeFinderThread w : workers) sum += w.getNumbersTested();
+        return sum;
+    }
+
+    @Override
+    public long getPrimesFound() {
+        long sum = 0;
+        for (PrimeFinderThread w : workers) sum += w.getPrimesFound();
+        return sum;
+    }
+
+    @Override
+    public double getNumbersPerSecond() {
+        double sum = 0;
+        for (double r : getWorkerNumbersPerSecond()) sum += r;
+        return sum;
+    }
+
+    @Override
+    public double getPrimesPerSecond() {
+        double sum = 0;
+        for (double r : getWorkerPrimesPerSecond()) sum += r;
+        return sum;
+    }
+
+    @Override
+    public double getProgress() {
+        return total == 0 ? 1 : (double) getNumbersTested() / total;
+    }
+
+    @Override
+    public double getEtaSeconds() {
+        double rate = getNumbersPerSecond();
+        return rate == 0 ? -1 : (total - getNumbersTested()) / rate;
+    }
+
+    @Override
+    public long getLastPauseLatencyMicros() {
+        return checkpoint.getLastPauseNanos() / 1_000;
+    }
+
+    @Override
+    public int getWorkers() {
+        return workers.length;
+    }
+
+    @Override
+    public long[] getWorkerPositions() {
+        long[] out = new long[workers.length];
+        for (int i = 0; i < workers.length; i++) out[i] = workers[i].getPosition();
+        return out;
+    }
+
+    @Override
+    public double[] getWorkerNumbersPerSecond() {
+        double[] out = new double[workers.length];
+        for (int i = 0; i < workers.length; i++) out[i] = rate(workers[i].getNumbersTested(), workers[i]);
+        return out;
+    }
+
+    @Override
+    public double[] getWorkerPrimesPerSecond() {
+        double[] out = new double[workers.length];
+        for (int i = 0; i < workers.length; i++) out[i] = rate(workers[i].getPrimesFound(), workers[i]);
+        return out;
+    }
+
+    @Override
+    public long[] getWorkerPausedMillis() {
+        long[] out = new long[workers.length];
+        for (int i = 0; i < workers.length; i++) out[i] = workers[i].getPausedNanos() / 1_000_000;
+        return out;
+    }
+
+    //Tasa sobre el tiempo activo del hilo (desde que inicio hasta ahora o hasta que termino, sin pausas).
+    //Un hilo que ya termino no suma a la tasa global
+    private static double rate(long count, PrimeFinderThread w) {
+        long start = w.getStartNanos();
+        if (start == 0 || w.getEndNanos() != 0) return 0;
+        long active = System.nanoTime() - start - w.getPausedNanos();
+        return active <= 0 ? 0 : count / (active / 1e9);
+    }
+
+    private void emitProgressEvent() {
+        PrimeProgressEvent event = new PrimeProgressEvent();
+        event.numbersTested = getNumbersTested();
+        event.numbersTotal = total;
+        event.primesFound = getPrimesFound();
+        event.numbersPerSecond = getNumbersPerSecond();
+        event.etaSeconds = getEtaSeconds();
+        event.commit();
+    }
+}
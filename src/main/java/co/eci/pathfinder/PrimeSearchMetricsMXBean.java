@@ -0,0 +1,34 @@
+package co.eci.pathfinder;
+
+//Metricas de una busqueda de primos publicadas por JMX (co.eci.pathfinder:type=PrimeSearch).
+//Las tasas se calculan sobre el tiempo sin pausas; los arreglos tienen una posicion por hilo
+public interface PrimeSearchMetricsMXBean {
+
+    long getNumbersTotal();
+
+    long getNumbersTested();
+
+    long getPrimesFound();
+
+    double getNumbersPerSecond();
+
+    double getPrimesPerSecond();
+
+    //Fraccion del rango ya evaluada (0 a 1)
+    double getProgress();
+
+    //Tiempo estimado para terminar, en segundos (-1 si aun no hay datos)
+    double getEtaSeconds();
+
+    long getLastPauseLatencyMicros();
+
+    int getWorkers();
+
+    long[] getWorkerPositions();
+
+    double[] getWorkerNumbersPerSecond();
+
+    double[] getWorkerPrimesPerSecond();
+
+    long[] getWorkerPausedMillis();
+}
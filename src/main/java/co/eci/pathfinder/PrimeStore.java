@@ -0,0 +1,217 @@
+package co.eci.pathfinder;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+//Conjunto ordenado e inmutable de primos guardado sin objetos por elemento: cada valor se guarda
+//como la diferencia (char, 2 bytes) con el anterior, y cada SAMPLE valores se guarda el valor completo
+//para poder responder nth/contains sin recorrer toda la estructura. Las diferencias que no caben en
+//un char (p. ej. entre dos bloques no contiguos de un mismo hilo) se marcan con 0 y su valor completo
+//se guarda aparte en la tabla de saltos
+public final class PrimeStore implements Iterable<Long> {
+
+    //Cada cuantos elementos se guarda un valor completo
+    static final int SAMPLE = 64;
+    //Elementos por bloque de diferencias (los bloques no se copian al crecer)
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK = 1 << CHUNK_BITS;
+
+    private static final PrimeStore EMPTY = new PrimeStore(new char[0][], new long[0], 0, new long[0], new long[0], 0);
+
+    private final char[][] deltas;
+    private final long[] samples;
+    private final long size;
+    //Posiciones (crecientes) y valores de los elementos cuya diferencia no cabe en un char
+    private final long[] jumpIndex;
+    private final long[] jumpValue;
+    private final int jumps;
+
+    private PrimeStore(char[][] deltas, long[] samples, long size, long[] jumpIndex, long[] jumpValue, int jumps) {
+        this.deltas = deltas;
+        this.samples = samples;
+        this.size = size;
+        this.jumpIndex = jumpIndex;
+        this.jumpValue = jumpValue;
+        this.jumps = jumps;
+    }
+
+    public static PrimeStore empty() {
+        return EMPTY;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //k-esimo primo del conjunto (desde 0)
+    public long nth(long k) {
+        if (k < 0 || k >= size) throw new IndexOutOfBoundsException("k=" + k + ", size=" + size);
+        long sample = k / SAMPLE;
+        long value = samples[(int) sample];
+        for (long i = sample * SAMPLE + 1; i <= k; i++) {
+            value = step(i, value);
+        }
+        return value;
+    }
+
+    public boolean contains(long value) {
+        if (size == 0) return false;
+        int sampleCount = (int) ((size + SAMPLE - 1) / SAMPLE);
+        int s = Arrays.binarySearch(samples, 0, sampleCount, value);
+        if (s >= 0) return true;
+        s = -s - 2; //Muestra anterior al valor buscado
+        if (s < 0) return false;
+        long current = samples[s];
+        long end = Math.min(size, (long) (s + 1) * SAMPLE);
+        for (long i = (long) s * SAMPLE + 1; i < end && current < value; i++) {
+            current = step(i, current);
+        }
+        return current == value;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private long index = 0;
+            private long current;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= size) throw new NoSuchElementException();
+                current = index % SAMPLE == 0 ? samples[(int) (index / SAMPLE)] : step(index, current);
+                index++;
+                return current;
+            }
+        };
+    }
+
+    public LongStream stream() {
+        Spliterator.OfLong split = Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        return StreamSupport.longStream(split, false);
+    }
+
+    //Vista List<Integer> para compatibilidad con getPrimes(): los valores se encajonan solo al leerlos
+    public List<Integer> asIntList() {
+        if (size > Integer.MAX_VALUE) throw new IllegalStateException("Demasiados elementos para una lista: " + size);
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return Math.toIntExact(nth(index));
+            }
+
+            @Override
+            public int size() {
+                return (int) size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && PrimeStore.this.contains((Integer) o);
+            }
+        };
+    }
+
+    //Valor del elemento i a partir del valor del elemento i-1
+    private long step(long i, long previous) {
+        int delta = deltas[(int) (i >>> CHUNK_BITS)][(int) (i & (CHUNK - 1))];
+        return delta != 0 ? previous + delta : jumpValue[Arrays.binarySearch(jumpIndex, 0, jumps, i)];
+    }
+
+    //Une varios conjuntos (cada uno ordenado) en uno solo, ordenado, con una mezcla de k vias sin encajonar
+    public static PrimeStore merge(List<PrimeStore> stores) {
+        PriorityQueue<long[]> heap = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        PrimitiveIterator.OfLong[] its = new PrimitiveIterator.OfLong[stores.size()];
+        for (int i = 0; i < its.length; i++) {
+            its[i] = stores.get(i).iterator();
+            if (its[i].hasNext()) heap.add(new long[] {its[i].nextLong(), i});
+        }
+        Builder out = new Builder();
+        while (!heap.isEmpty()) {
+            long[] top = heap.poll();
+            out.add(top[0]);
+            PrimitiveIterator.OfLong it = its[(int) top[1]];
+            if (it.hasNext()) {
+                top[0] = it.nextLong();
+                heap.add(top);
+            }
+        }
+        return out.build();
+    }
+
+    //Constructor incremental de un solo hilo: los valores deben llegar en orden estrictamente creciente
+    public static final class Builder {
+
+        private char[][] deltas = new char[4][];
+        private long[] samples = new long[16];
+        private long[] jumpIndex = new long[4];
+        private long[] jumpValue = new long[4];
+        private int jumps = 0;
+        private long size = 0;
+        private long last = Long.MIN_VALUE;
+
+        public void add(long value) {
+            if (size > 0 && value <= last) {
+                throw new IllegalArgumentException("Los valores deben ser crecientes: " + value + " <= " + last);
+            }
+            if (size % SAMPLE == 0) {
+                int s = (int) (size / SAMPLE);
+                if (s == samples.length) samples = Arrays.copyOf(samples, s * 2);
+                samples[s] = value;
+            } else {
+                long gap = value - last;
+                int c = (int) (size >>> CHUNK_BITS);
+                if (c == deltas.length) deltas = Arrays.copyOf(deltas, c * 2);
+                if (deltas[c] == null) deltas[c] = new char[CHUNK];
+                if (gap > Character.MAX_VALUE) {
+                    //Se deja la diferencia en 0 y el valor completo va a la tabla de saltos
+                    if (jumps == jumpIndex.length) {
+                        jumpIndex = Arrays.copyOf(jumpIndex, jumps * 2);
+                        jumpValue = Arrays.copyOf(jumpValue, jumps * 2);
+                    }
+                    jumpIndex[jumps] = size;
+                    jumpValue[jumps] = value;
+                    jumps++;
+                } else {
+                    deltas[c][(int) (size & (CHUNK - 1))] = (char) gap;
+                }
+            }
+            last = value;
+            size++;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        //Vista inmutable de lo agregado hasta ahora; comparte los bloques, que no vuelven a modificarse
+        //en las posiciones ya escritas
+        public PrimeStore build() {
+            if (size == 0) return EMPTY;
+            //Los bloques de diferencias solo se crean al agregar un valor que no es muestra
+            int chunks = (int) ((size - 1 >>> CHUNK_BITS) + 1);
+            char[][] view = Arrays.copyOf(deltas, chunks);
+            for (int c = 0; c < chunks; c++) {
+                if (view[c] == null) view[c] = new char[0];
+            }
+            return new PrimeStore(view, samples, size, jumpIndex, jumpValue, jumps);
+        }
+    }
+}
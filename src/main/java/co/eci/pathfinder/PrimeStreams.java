@@ -0,0 +1,126 @@
+package co.eci.pathfinder;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+//API para consumir los primos de un rango a medida que se encuentran, sin esperar a que termine la busqueda
+//ni guardarlos todos. El motor se elige segun la densidad del rango (PrimeEngine.forRange)
+public final class PrimeStreams {
+
+    //Tamaño minimo de cada bloque de trabajo (cada lote emitido corresponde a un bloque)
+    static final int MIN_CHUNK = 1 << 16;
+
+    private PrimeStreams() {}
+
+    //Publicador de lotes en orden ascendente. Cada suscripcion inicia su propia busqueda en paralelo sobre
+    //el ForkJoinPool comun; solo se evaluan por adelantado tantos bloques como lotes haya pedido el suscriptor
+    public static Flow.Publisher<long[]> ordered(long from, long to) {
+        return ordered(from, to, ForkJoinPool.commonPool());
+    }
+
+    public static Flow.Publisher<long[]> ordered(long from, long to, Executor executor) {
+        return new PrimePublisher(from, to, executor, true);
+    }
+
+    //Igual que ordered pero emite cada lote apenas esta listo: los lotes llegan en cualquier orden
+    //(los primos dentro de un lote si estan ordenados) y no hay bloques terminados esperando a uno mas lento
+    public static Flow.Publisher<long[]> unordered(long from, long to) {
+        return unordered(from, to, ForkJoinPool.commonPool());
+    }
+
+    public static Flow.Publisher<long[]> unordered(long from, long to, Executor executor) {
+        return new PrimePublisher(from, to, executor, false);
+    }
+
+    //Flujo perezoso y ordenado: cada bloque se evalua cuando el consumidor llega a el.
+    //Con .parallel() el rango se divide entre los hilos del ForkJoinPool
+    public static LongStream stream(long from, long to) {
+        PrimeEngine engine = PrimeEngine.forRange(from, to);
+        return StreamSupport.longStream(new RangeSpliterator(engine, from, to, engine.chunkSize(MIN_CHUNK)), false);
+    }
+
+    //Evalua un bloque y retorna sus primos
+    static long[] scanChunk(PrimeEngine engine, long from, long to) {
+        LongBuffer buffer = new LongBuffer();
+        engine.scan(from, to, buffer);
+        return buffer.toArray();
+    }
+
+    //Arreglo de long que crece segun se necesite
+    static final class LongBuffer implements LongConsumer {
+        long[] values = new long[256];
+        int size = 0;
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    //Recorre [from, to) bloque por bloque; trySplit parte el rango restante por la mitad (alineado al bloque)
+    private static final class RangeSpliterator implements Spliterator.OfLong {
+        private final PrimeEngine engine;
+        private final int chunk;
+        private long from;
+        private final long to;
+        private long[] current = new long[0];
+        private int index = 0;
+
+        RangeSpliterator(PrimeEngine engine, long from, long to, int chunk) {
+            this.engine = engine;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            while (index == current.length) {
+                if (from >= to) return false;
+                long end = Math.min(to, from + chunk);
+                current = scanChunk(engine, from, end);
+                index = 0;
+                from = end;
+            }
+            action.accept(current[index++]);
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            //Solo se parte lo que aun no se ha evaluado
+            if (index < current.length || to - from < 2L * chunk) return null;
+            long mid = from + (to - from) / 2 / chunk * chunk;
+            Spliterator.OfLong prefix = new RangeSpliterator(engine, from, mid, chunk);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) ((to - from) / Math.log(Math.max(to, 3))) + (current.length - index);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+    }
+}
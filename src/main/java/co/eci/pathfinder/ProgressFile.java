@@ -0,0 +1,297 @@
+package co.eci.pathfinder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+//Archivo de progreso mapeado en memoria para retomar busquedas largas.
+//Cada hilo registra los bloques que termina (rango + primos comprimidos) escribiendo directamente en el
+//MappedByteBuffer: no hay llamadas al sistema en el ciclo de trabajo y lo escrito sobrevive aunque la JVM
+//muera. force() (para sobrevivir a una caida del sistema operativo) lo hace Control en las pausas.
+//
+//Formato: encabezado | tabla de registros (from, to, offset, primos, estado) | datos.
+//Los datos de un registro son el primer primo (long) seguido de las diferencias (char) entre primos.
+//El encabezado y la tabla van en un solo mapeo; los datos en segmentos de SEGMENT_BYTES que se mapean a medida que
+//se usan (un MappedByteBuffer no pasa de 2 GB) y los datos de un registro nunca cruzan de un segmento a otro.
+public class ProgressFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x50524D31; //"PRM1"
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 32;
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    //Estados de un registro
+    private static final int EMPTY = 0, RESERVED = 1, COMPLETE = 2;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer; //Encabezado y tabla de registros
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0]; //Datos
+    private final long from, to;
+    private final int capacity;
+    private final long dataStart;
+    private final long size; //Tamaño del archivo: los datos no pasan de aqui
+
+    private final AtomicInteger nextRecord;
+    private final AtomicLong nextData;
+    //Registros que no se pudieron guardar por falta de espacio (se volveran a evaluar al retomar)
+    private final AtomicInteger dropped = new AtomicInteger(0);
+    //Tiempo total (ns) que los hilos dedicaron a escribir y que Control dedico a force()
+    private final AtomicLong writeNanos = new AtomicLong(0);
+    private final AtomicLong forceNanos = new AtomicLong(0);
+
+    private ProgressFile(FileChannel channel, MappedByteBuffer buffer, long from, long to, int capacity, long size) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.from = from;
+        this.to = to;
+        this.capacity = capacity;
+        this.dataStart = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+        this.size = size;
+
+        //Al reabrir se continua despues del ultimo registro usado y de los datos ya reservados.
+        //Puede haber huecos (un hilo reservo un registro y la JVM murio antes de escribirlo), asi que se recorre toda la tabla
+        int used = 0;
+        long data = dataStart;
+        for (int i = 0; i < capacity; i++) {
+            int at = recordAt(i);
+            if (buffer.getInt(at + 28) == EMPTY) continue;
+            used = i + 1;
+            data = Math.max(data, buffer.getLong(at + 16) + dataBytes(buffer.getInt(at + 24)));
+        }
+        this.nextRecord = new AtomicInteger(used);
+        this.nextData = new AtomicLong(data);
+    }
+
+    //Abre el archivo si existe (debe ser del mismo rango) o lo crea para [from, to) con bloques de al menos minChunk
+    public static ProgressFile open(Path path, long from, long to, int minChunk) {
+        try {
+            boolean exists = Files.exists(path) && Files.size(path) > 0;
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int capacity;
+            long size;
+            if (exists) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC || header.getLong(8) != from || header.getLong(16) != to) {
+                    channel.close();
+                    throw new IllegalArgumentException("El archivo de progreso no corresponde al rango [" + from + ", " + to + "): " + path);
+                }
+                capacity = header.getInt(24);
+                size = channel.size();
+            } else {
+                //Cota de registros: cada bloque mide al menos minChunk, mas los recortes al final de cada rango
+                //La tabla se mapea entera, asi que queda por debajo de 2 GB
+                capacity = (int) Math.min((Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES, 2 * ((to - from) / minChunk) + 1024);
+                size = HEADER_BYTES + (long) capacity * RECORD_BYTES + (long) capacity * 8 + 2 * maxPrimes(from, to);
+                //El archivo es disperso: solo ocupa disco lo que realmente se escribe
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+            if (!exists) {
+                buffer.putInt(0, MAGIC);
+                buffer.putLong(8, from);
+                buffer.putLong(16, to);
+                buffer.putInt(24, capacity);
+            }
+            return new ProgressFile(channel, buffer, from, to, capacity, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Rangos ya terminados, ordenados
+    public List<Range> completedRanges() {
+        List<Range> done = new ArrayList<>();
+        forEachComplete(at -> done.add(new Range(buffer.getLong(at), buffer.getLong(at + 8))));
+        done.sort((x, y) -> Long.compare(x.from(), y.from()));
+        return done;
+    }
+
+    //Cantidad de primos en los rangos ya terminados
+    public long completedPrimes() {
+        long[] total = {0};
+        forEachComplete(at -> total[0] += buffer.getInt(at + 24));
+        return total[0];
+    }
+
+    //Primos de los rangos ya terminados, como un solo almacen ordenado
+    public PrimeStore completedStore() {
+        List<Integer> records = new ArrayList<>();
+        forEachComplete(records::add);
+        records.sort((x, y) -> Long.compare(buffer.getLong(x), buffer.getLong(y)));
+        PrimeStore.Builder out = new PrimeStore.Builder();
+        for (int at : records) {
+            int count = buffer.getInt(at + 24);
+            if (count == 0) continue;
+            long data = buffer.getLong(at + 16);
+            MappedByteBuffer segment = segment(data);
+            int d = offset(data);
+            long p = segment.getLong(d);
+            out.add(p);
+            for (int k = 1; k < count; k++) {
+                p += segment.getChar(d + 8 + 2 * (k - 1));
+                out.add(p);
+            }
+        }
+        return out.build();
+    }
+
+    //Escritor propio de cada hilo: acumula los primos del bloque actual y los registra al terminarlo
+    public Writer newWriter() {
+        return new Writer();
+    }
+
+    //Lleva a disco lo escrito hasta ahora; retorna el tiempo que tomo (ns)
+    public long force() {
+        long start = System.nanoTime();
+        buffer.force();
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) segment.force();
+        }
+        long elapsed = System.nanoTime() - start;
+        forceNanos.addAndGet(elapsed);
+        return elapsed;
+    }
+
+    public long getWriteNanos() {
+        return writeNanos.get();
+    }
+
+    public long getForceNanos() {
+        return forceNanos.get();
+    }
+
+    public int getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public final class Writer {
+
+        private long[] pending = new long[1024];
+        private char[] deltas = new char[1024];
+        private int count = 0;
+
+        public void add(long prime) {
+            if (count == pending.length) pending = Arrays.copyOf(pending, count * 2);
+            pending[count++] = prime;
+        }
+
+        //Registra [blockFrom, blockTo) como terminado con los primos acumulados
+        public void commit(long blockFrom, long blockTo) {
+            long start = System.nanoTime();
+            int slot = nextRecord.getAndIncrement();
+            long data = slot < capacity ? reserveData(dataBytes(count)) : -1;
+            if (data < 0) {
+                dropped.incrementAndGet();
+            } else {
+                int at = recordAt(slot);
+                //Primero se reserva el registro, luego los datos y al final se marca como completo
+                buffer.putLong(at, blockFrom);
+                buffer.putLong(at + 8, blockTo);
+                buffer.putLong(at + 16, data);
+                buffer.putInt(at + 24, count);
+                buffer.putInt(at + 28, RESERVED);
+                if (count > 0) {
+                    if (deltas.length < count) deltas = new char[pending.length];
+                    for (int k = 1; k < count; k++) {
+                        deltas[k - 1] = (char) (pending[k] - pending[k - 1]);
+                    }
+                    MappedByteBuffer segment = segment(data);
+                    int d = offset(data);
+                    segment.putLong(d, pending[0]);
+                    segment.slice(d + 8, 2 * (count - 1)).asCharBuffer().put(deltas, 0, count - 1);
+                }
+                buffer.putInt(at + 28, COMPLETE);
+            }
+            count = 0;
+            writeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void forEachComplete(IntConsumer action) {
+        int used = nextRecord.get();
+        for (int i = 0; i < Math.min(used, capacity); i++) {
+            int at = recordAt(i);
+            if (buffer.getInt(at + 28) == COMPLETE) action.accept(at);
+        }
+    }
+
+    //Reserva bytes de datos sin cruzar el borde de un segmento (si no caben se pasa al siguiente);
+    //retorna la posicion en el archivo o -1 si no queda espacio
+    private long reserveData(long bytes) {
+        if (bytes > SEGMENT_BYTES) return -1;
+        while (true) {
+            long current = nextData.get();
+            long data = current;
+            long used = (data - dataStart) % SEGMENT_BYTES;
+            if (used + bytes > SEGMENT_BYTES) data += SEGMENT_BYTES - used;
+            if (data + bytes > size) return -1;
+            if (nextData.compareAndSet(current, data + bytes)) return data;
+        }
+    }
+
+    //Segmento de datos que contiene la posicion pos del archivo
+    private MappedByteBuffer segment(long pos) {
+        int i = (int) ((pos - dataStart) / SEGMENT_BYTES);
+        MappedByteBuffer[] current = segments;
+        if (i < current.length && current[i] != null) return current[i];
+        return map(i);
+    }
+
+    private int offset(long pos) {
+        return (int) ((pos - dataStart) % SEGMENT_BYTES);
+    }
+
+    //Solo se entra aqui la primera vez que se usa un segmento
+    private synchronized MappedByteBuffer map(int i) {
+        if (i >= segments.length) segments = Arrays.copyOf(segments, Math.max(i + 1, 2 * segments.length));
+        if (segments[i] == null) {
+            try {
+                long start = dataStart + i * SEGMENT_BYTES;
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(SEGMENT_BYTES, size - start));
+                MappedByteBuffer[] copy = segments.clone();
+                copy[i] = segment;
+                segments = copy;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments[i];
+    }
+
+    private static int recordAt(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static long dataBytes(int primes) {
+        return primes == 0 ? 0 : 8 + 2L * (primes - 1);
+    }
+
+    //Cota superior de primos en [from, to): el menor entre los coprimos con 30 y la cota de Rosser-Schoenfeld para pi(to)
+    private static long maxPrimes(long from, long to) {
+        long wheel = (to - from) * 8 / 30 + 11;
+        long rosser = to < 17 ? 7 : (long) (1.25506 * to / Math.log(to)) + 1;
+        return Math.min(wheel, rosser);
+    }
+}
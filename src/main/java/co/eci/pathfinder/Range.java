@@ -0,0 +1,13 @@
+package co.eci.pathfinder;
+
+//Rango semiabierto [from, to) de numeros a evaluar
+public record Range(long from, long to) {
+
+    public Range {
+        if (from > to) throw new IllegalArgumentException("from must be <= to");
+    }
+
+    public long size() {
+        return to - from;
+    }
+}
@@ -0,0 +1,65 @@
+package co.eci.pathfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Lista ordenada de rangos disjuntos vista como un solo espacio continuo [0, total()).
+//Los planificadores reparten posiciones de ese espacio y luego las traducen al rango real
+public class RangeList {
+
+    private final Range[] ranges;
+    //Posicion (en el espacio continuo) donde empieza cada rango
+    private final long[] offsets;
+    private final long total;
+
+    public RangeList(List<Range> ranges) {
+        this.ranges = ranges.stream().filter(r -> r.size() > 0).toArray(Range[]::new);
+        this.offsets = new long[this.ranges.length];
+        long acc = 0;
+        for (int i = 0; i < this.ranges.length; i++) {
+            if (i > 0 && this.ranges[i].from() < this.ranges[i - 1].to()) {
+                throw new IllegalArgumentException("Los rangos deben estar ordenados y sin traslapes");
+            }
+            offsets[i] = acc;
+            acc += this.ranges[i].size();
+        }
+        this.total = acc;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    //Rango real que corresponde a [start, end) del espacio continuo, recortado al final del rango que contiene a start
+    public Range slice(long start, long end) {
+        int i = indexOf(start);
+        long from = ranges[i].from() + (start - offsets[i]);
+        long to = Math.min(ranges[i].to(), ranges[i].from() + (end - offsets[i]));
+        return new Range(from, to);
+    }
+
+    //Complemento de los rangos dados dentro de [from, to): lo que falta por evaluar
+    public static List<Range> missing(long from, long to, List<Range> done) {
+        List<Range> sorted = new ArrayList<>(done);
+        sorted.sort((x, y) -> Long.compare(x.from(), y.from()));
+        List<Range> pending = new ArrayList<>();
+        long cursor = from;
+        for (Range r : sorted) {
+            if (r.from() > cursor) pending.add(new Range(cursor, Math.min(r.from(), to)));
+            cursor = Math.max(cursor, r.to());
+            if (cursor >= to) break;
+        }
+        if (cursor < to) pending.add(new Range(cursor, to));
+        return pending;
+    }
+
+    private int indexOf(long position) {
+        int lo = 0, hi = ranges.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= position) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+}
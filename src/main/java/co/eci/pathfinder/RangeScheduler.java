@@ -0,0 +1,28 @@
+package co.eci.pathfinder;
+
+import java.util.List;
+
+//Reparte el rango total entre los PrimeFinderThread
+public interface RangeScheduler {
+
+    //Siguiente rango que debe evaluar el hilo indicado, o null si ya no queda trabajo para el
+    Range next(int worker);
+
+    //Metodo factory estatico: "static" (un tramo fijo por hilo) o "dynamic" (bloques desde un cursor compartido)
+    static RangeScheduler of(String mode, long from, long to, int workers, int minChunk) {
+        return of(mode, List.of(new Range(from, to)), workers, minChunk);
+    }
+
+    //Igual que el anterior pero sobre varios rangos (p. ej. lo que falta al retomar una ejecucion)
+    static RangeScheduler of(String mode, List<Range> ranges, int workers, int minChunk) {
+        RangeList list = new RangeList(ranges);
+        switch (mode) {
+            case "static":
+                return new StaticRangeScheduler(list, workers);
+            case "dynamic":
+                return new DynamicRangeScheduler(list, workers, minChunk);
+            default:
+                throw new IllegalArgumentException("Planificador desconocido: " + mode);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package co.eci.pathfinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Trabajador de una busqueda repartida: pide arriendos al Coordinator y resuelve cada uno con PrimeFinderThread,
+//igual que Control en una sola JVM. Mientras calcula renueva el arriendo para que no se reasigne
+public class RemoteWorker extends Thread {
+
+    private final static String HOST = System.getProperty("host", "localhost"); //Maquina del coordinador
+    private final static int PORT = Integer.getInteger("port", 5050); //Puerto del coordinador
+    private final static int NTHREADS = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors()); //Hilos por arriendo
+    private final static String ENGINE = System.getProperty("engine", "auto"); //Motor de primalidad
+    private final static String SCHEDULER = System.getProperty("scheduler", "dynamic"); //Reparto del arriendo entre hilos
+    private final static int MIN_CHUNK = 1 << 12; //Tamaño minimo de bloque
+    private final static long RENEW_MILISECONDS = Math.max(1L, Long.getLong("leaseTimeout", 10000L) / 3); //Cada cuanto renovar el arriendo
+
+    private long leases = 0; //Arriendos resueltos por este trabajador
+
+    private RemoteWorker() {
+        super();
+    }
+
+    //Metodo factory estatico
+    public static RemoteWorker newRemoteWorker() {
+        return new RemoteWorker();
+    }
+
+    @Override
+    public void run() {
+        ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor();
+        try (Socket socket = new Socket(HOST, PORT);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                send(out, LeaseProtocol.REQUEST, 0);
+                byte type = in.readByte();
+                if (type == LeaseProtocol.DONE) {
+                    break;
+                } else if (type == LeaseProtocol.WAIT) {
+                    Thread.sleep(in.readLong());
+                    continue;
+                }
+                int slot = in.readInt();
+                long from = in.readLong();
+                long to = in.readLong();
+
+                ScheduledFuture<?> renewal = renewer.scheduleAtFixedRate(() -> {
+                    try {
+                        send(out, LeaseProtocol.RENEW, slot);
+                    } catch (IOException e) {
+                        //La conexion se cerro; el hilo principal lo notara
+                    }
+                }, RENEW_MILISECONDS, RENEW_MILISECONDS, TimeUnit.MILLISECONDS);
+                try {
+                    buscar(slot, from, to, out);
+                } finally {
+                    renewal.cancel(false);
+                }
+                leases++;
+            }
+            System.out.println("Trabajador terminado: " + leases + " arriendos resueltos");
+        } catch (IOException e) {
+            System.out.println("Conexion con el coordinador perdida: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            renewer.shutdownNow();
+        }
+    }
+
+    //Resuelve un arriendo con los mismos hilos que Control y devuelve el conteo y los primos comprimidos
+    private void buscar(int slot, long from, long to, DataOutputStream out) throws IOException, InterruptedException {
+        PrimeEngine engine = PrimeEngine.of(ENGINE, from, to);
+        int minChunk = engine.chunkSize(MIN_CHUNK);
+        RangeScheduler scheduler = RangeScheduler.of(SCHEDULER, from, to, NTHREADS, minChunk);
+        PauseCheckpoint checkpoint = new PauseCheckpoint();
+        AtomicLong primesCount = new AtomicLong(0);
+
+        PrimeFinderThread[] pft = new PrimeFinderThread[NTHREADS];
+        for (int i = 0; i < NTHREADS; i++) {
+            pft[i] = new PrimeFinderThread(i, scheduler, checkpoint, primesCount, engine, minChunk);
+            pft[i].start();
+        }
+        long busy = 0;
+        List<PrimeStore> stores = new ArrayList<>(NTHREADS);
+        for (PrimeFinderThread t : pft) {
+            t.join();
+            busy += t.getBusyNanos();
+            stores.add(t.getPrimeStore());
+        }
+        byte[] data = LeaseProtocol.encode(PrimeStore.merge(stores));
+
+        synchronized (out) {
+            out.writeByte(LeaseProtocol.RESULT);
+            out.writeInt(slot);
+            out.writeLong(primesCount.get());
+            out.writeLong(busy);
+            out.writeInt(data.length);
+            out.write(data);
+            out.flush();
+        }
+    }
+
+    //El hilo de renovacion y el principal comparten el flujo de salida
+    private static void send(DataOutputStream out, byte type, int slot) throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            if (type == LeaseProtocol.RENEW) out.writeInt(slot);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package co.eci.pathfinder;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+//Criba de Eratostenes segmentada con rueda 2*3*5: cada byte representa 30 numeros consecutivos
+//y cada bit uno de los 8 residuos coprimos con 30, asi que solo se criban 8 de cada 30 numeros
+public class SegmentedSieveEngine implements PrimeEngine {
+
+    //Tamaño por defecto del segmento: 32 KB, lo que cabe en la cache L1 de datos
+    public static final int DEFAULT_SEGMENT_BYTES = 32 * 1024;
+
+    //Primos de la rueda: no quedan representados en los bytes
+    private static final int[] WHEEL_PRIMES = {2, 3, 5};
+    //Residuos modulo 30 coprimos con 30, en orden ascendente (bit i <-> RESIDUES[i])
+    private static final int[] RESIDUES = {1, 7, 11, 13, 17, 19, 23, 29};
+    //Indice de bit para cada residuo modulo 30 (-1 si no es coprimo con 30)
+    private static final int[] BIT = new int[30];
+
+    static {
+        Arrays.fill(BIT, -1);
+        for (int i = 0; i < RESIDUES.length; i++) {
+            BIT[RESIDUES[i]] = i;
+        }
+    }
+
+    //Limite superior (inclusive) que se puede evaluar con los primos base calculados
+    private final long limit;
+    //Bytes por segmento
+    private final int segmentBytes;
+    //Primos base mayores que 5 y hasta raiz(limit); compartidos (solo lectura) por todos los hilos
+    private final int[] basePrimes;
+    //Buffer de segmento de cada hilo, reutilizado entre llamadas a scan (el motor lo comparten todos los hilos)
+    private final ThreadLocal<byte[]> segments;
+
+    public SegmentedSieveEngine(long limit) {
+        this(limit, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SegmentedSieveEngine(long limit, int segmentBytes) {
+        if (limit < 0) throw new IllegalArgumentException("limit must be >= 0");
+        if (Math.sqrt((double) limit) >= Integer.MAX_VALUE) throw new IllegalArgumentException("limit too large for a sieve: " + limit);
+        if (segmentBytes <= 0) throw new IllegalArgumentException("segmentBytes must be > 0");
+        this.limit = limit;
+        this.segmentBytes = segmentBytes;
+        this.basePrimes = basePrimes((int) Math.sqrt((double) limit) + 1);
+        this.segments = ThreadLocal.withInitial(() -> new byte[segmentBytes]);
+    }
+
+    @Override
+    public void scan(long from, long to, LongConsumer sink) {
+        if (to - 1 > limit) {
+            throw new IllegalArgumentException("El rango supera el limite de la criba: " + limit);
+        }
+        from = Math.max(from, 2);
+        if (from >= to) return;
+
+        for (int p : WHEEL_PRIMES) {
+            if (p >= from && p < to) sink.accept(p);
+        }
+
+        //Cada hilo criba sus propios segmentos sobre su propio buffer
+        byte[] seg = segments.get();
+        long span = 30L * segmentBytes;
+        for (long segLo = from / 30 * 30; segLo < to; segLo += span) {
+            int bytes = (int) ((Math.min(segLo + span, to) - segLo + 29) / 30);
+            sieveSegment(seg, segLo, bytes);
+            emit(seg, segLo, bytes, from, to, sink);
+        }
+    }
+
+    @Override
+    public int blockSize() {
+        return 30 * segmentBytes;
+    }
+
+    //Tacha los multiplos de los primos base dentro del segmento [segLo, segLo + 30*bytes)
+    private void sieveSegment(byte[] seg, long segLo, int bytes) {
+        Arrays.fill(seg, 0, bytes, (byte) 0);
+        long segHi = segLo + 30L * bytes;
+        for (int p : basePrimes) {
+            if ((long) p * p >= segHi) break;
+            //Primer multiplicador m >= p cuyo producto p*m cae dentro del segmento
+            long mStart = Math.max(p, (segLo + p - 1) / p);
+            for (int r : RESIDUES) {
+                //Los multiplos p*m con m = r (mod 30) avanzan de 30*p en 30*p, o sea de p bytes en p bytes
+                long m = mStart + ((r - mStart % 30) + 30) % 30;
+                long v = p * m;
+                if (v >= segHi) continue;
+                byte mask = (byte) (1 << BIT[(int) (v % 30)]);
+                for (int k = (int) ((v - segLo) / 30); k < bytes; k += p) {
+                    seg[k] |= mask;
+                }
+            }
+        }
+    }
+
+    //Entrega los bits no tachados del segmento que caen en [from, to)
+    private static void emit(byte[] seg, long segLo, int bytes, long from, long to, LongConsumer sink) {
+        for (int k = 0; k < bytes; k++) {
+            int free = ~seg[k] & 0xFF;
+            long base = segLo + 30L * k;
+            while (free != 0) {
+                long v = base + RESIDUES[Integer.numberOfTrailingZeros(free)];
+                if (v >= to) return;
+                if (v >= from) sink.accept(v);
+                free &= free - 1;
+            }
+        }
+    }
+
+    //Criba simple para obtener los primos base (mayores que 5) hasta n
+    private static int[] basePrimes(int n) {
+        boolean[] composite = new boolean[n + 1];
+        int count = 0;
+        //Cota de Rosser-Schoenfeld para pi(n)
+        int[] primes = new int[(int) (1.25506 * n / Math.log(Math.max(n, 2))) + 16];
+        for (int i = 7; i <= n; i += 2) {
+            if (composite[i] || i % 3 == 0 || i % 5 == 0) continue;
+            primes[count++] = i;
+            for (long j = (long) i * i; j <= n; j += 2L * i) {
+                composite[(int) j] = true;
+            }
+        }
+        return Arrays.copyOf(primes, count);
+    }
+}
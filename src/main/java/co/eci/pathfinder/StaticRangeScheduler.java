@@ -0,0 +1,40 @@
+package co.eci.pathfinder;
+
+import java.util.List;
+
+//Particion original: cada hilo recibe un tramo de total / workers numeros, el ultimo hasta el final.
+//Si el tramo cruza varios rangos se entrega por partes
+public class StaticRangeScheduler implements RangeScheduler {
+
+    private final RangeList ranges;
+    //Posicion actual y final del tramo de cada hilo (cada posicion la toca un solo hilo)
+    private final long[] position;
+    private final long[] end;
+
+    public StaticRangeScheduler(long from, long to, int workers) {
+        this(new RangeList(List.of(new Range(from, to))), workers);
+    }
+
+    public StaticRangeScheduler(RangeList ranges, int workers) {
+        if (workers <= 0) throw new IllegalArgumentException("workers must be > 0");
+        this.ranges = ranges;
+        this.position = new long[workers];
+        this.end = new long[workers];
+        long ndata = ranges.total() / workers;
+        int i;
+        for (i = 0; i < workers - 1; i++) {
+            position[i] = i * ndata;
+            end[i] = (i + 1) * ndata;
+        }
+        position[i] = i * ndata;
+        end[i] = ranges.total();
+    }
+
+    @Override
+    public Range next(int worker) {
+        if (position[worker] >= end[worker]) return null;
+        Range r = ranges.slice(position[worker], end[worker]);
+        position[worker] += r.size();
+        return r;
+    }
+}
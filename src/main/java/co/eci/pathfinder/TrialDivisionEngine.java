@@ -0,0 +1,36 @@
+package co.eci.pathfinder;
+
+import java.util.function.LongConsumer;
+
+//Motor original: division por tentativa con impares, numero por numero
+public class TrialDivisionEngine implements PrimeEngine {
+
+    @Override
+    public void scan(long from, long to, LongConsumer sink) {
+        for (long n = from; n < to; n++) {
+            if (isPrime(n)) {
+                sink.accept(n);
+            }
+        }
+    }
+
+    //Evalua numero por numero, no necesita bloques propios
+    @Override
+    public int blockSize() {
+        return 1;
+    }
+
+    //Metodo para determinar si un numero es primo
+    static boolean isPrime(long n) {
+        boolean ans;
+        if (n > 2) {
+            ans = n % 2 != 0;
+            for (long i = 3; ans && i * i <= n; i += 2) {
+                ans = n % i != 0;
+            }
+        } else {
+            ans = n == 2;
+        }
+        return ans;
+    }
+}
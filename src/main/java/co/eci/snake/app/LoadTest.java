@@ -0,0 +1,256 @@
+package co.eci.snake.app;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.MoveJournal;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.TickEngine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Prueba de carga sin interfaz: N serpientes sobre un Board de W×H durante un tiempo fijo.
+// Reporta pasos/s, latencia p50/p99 de Board.step, espera del lock, GC y memoria asignada; con -Dsweep
+// repite la corrida para varias cantidades de serpientes y escribe la curva de escalamiento en CSV.
+//
+//   -Dsnakes=N          serpientes (por defecto 100)
+//   -Dsweep=10,100,...  lista de cantidades (reemplaza a snakes)
+//   -Dwidth=W -Dheight=H  tablero (por defecto crece con las serpientes: ~400 celdas por serpiente)
+//   -Dduration=ms       duración de cada corrida (por defecto 5000)
+//   -Dticks=T           en modo tick, cantidad de ticks en lugar de duración
+//   -Dengine=threads|tick  un hilo virtual por serpiente sin dormir (por defecto) o TickEngine
+//   -Dboard=locked|lockfree
+//   -Dsleep=ms          pausa entre pasos en modo threads (por defecto 0)
+//   -Dseed=S -Dcsv=archivo
+//   -Djournal=archivo   graba la corrida para reproducirla con Replay (con -Dsweep, archivo-N por corrida)
+public final class LoadTest {
+  private static final long DURATION_MS = Long.getLong("duration", 5000L);
+  private static final long TICKS = Long.getLong("ticks", 0L);
+  private static final String ENGINE = System.getProperty("engine", "threads");
+  private static final Board.Mode MODE = "lockfree".equals(System.getProperty("board")) ? Board.Mode.LOCK_FREE : Board.Mode.LOCKED;
+  private static final long SLEEP_MS = Long.getLong("sleep", 0L);
+  private static final long SEED = Long.getLong("seed", 42L);
+  private static final String CSV = System.getProperty("csv");
+  private static final String JOURNAL = System.getProperty("journal");
+
+  private static final String HEADER = "snakes,engine,board,width,height,durationMs,steps,stepsPerSec,p50Ns,p99Ns,"
+      + "lockWaits,lockWaitMs,casFailures,respawns,gcCount,gcMs,allocatedMB";
+
+  private LoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    List<Integer> counts = new ArrayList<>();
+    String sweep = System.getProperty("sweep");
+    if (sweep != null) {
+      for (String n : sweep.split(",")) counts.add(Integer.parseInt(n.trim()));
+    } else {
+      counts.add(Integer.getInteger("snakes", 100));
+    }
+
+    List<String> rows = new ArrayList<>();
+    for (int n : counts) {
+      String journal = JOURNAL == null ? null : counts.size() > 1 ? JOURNAL + "-" + n : JOURNAL;
+      rows.add(run(n, journal));
+    }
+
+    if (CSV != null) {
+      try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Path.of(CSV)))) {
+        out.println(HEADER);
+        rows.forEach(out::println);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      System.out.println("Curva de escalamiento escrita en " + CSV);
+    }
+  }
+
+  // Una corrida con n serpientes; devuelve la fila del CSV
+  private static String run(int n, String journalFile) throws InterruptedException {
+    int side = (int) Math.max(100, Math.ceil(Math.sqrt(400.0 * n)));
+    int width = Integer.getInteger("width", side);
+    int height = Integer.getInteger("height", side);
+    Board board = new Board(width, height, MODE, SEED);
+    if (journalFile != null) board.setJournal(MoveJournal.create(Path.of(journalFile), width, height, SEED));
+    SplittableRandom rnd = new SplittableRandom(SEED);
+    List<Snake> snakes = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) snakes.add(placeSnake(board, i, rnd));
+
+    Histogram latency = new Histogram();
+    long gcCount0 = gcCount(), gcMs0 = gcMillis(), alloc0 = allocatedBytes();
+    long start = System.nanoTime();
+    long steps;
+    int respawns = 0;
+
+    if ("tick".equals(ENGINE)) {
+      // Latencia por tick repartida entre sus movimientos (los pasos se aplican en lote). Entre ticks las muertas
+      // se retiran y entra otra en una celda al azar, como en la corrida con hilos
+      TickEngine engine = new TickEngine(board, snakes, SEED);
+      int nextId = n;
+      long deadline = start + DURATION_MS * 1_000_000;
+      for (long t = 0; TICKS > 0 ? t < TICKS : System.nanoTime() < deadline; t++) {
+        long before = engine.getMoves();
+        long t0 = System.nanoTime();
+        engine.tick();
+        long moved = engine.getMoves() - before;
+        if (moved > 0) latency.record((System.nanoTime() - t0) / moved, moved);
+        for (int i = 0; i < n; i++) {
+          Snake s = engine.snakes().get(i);
+          if (!s.isDead()) continue;
+          board.removeSnake(s);
+          engine.replace(i, placeSnake(board, nextId++, rnd));
+          respawns++;
+        }
+      }
+      steps = engine.getMoves();
+    } else {
+      // Un hilo virtual por serpiente; al morir se retira y entra otra en una celda al azar
+      AtomicInteger nextId = new AtomicInteger(n);
+      AtomicInteger respawned = new AtomicInteger();
+      Histogram[] perSnake = new Histogram[n];
+      long[] perSnakeSteps = new long[n];
+      long deadline = start + DURATION_MS * 1_000_000;
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (int i = 0; i < n; i++) {
+          int slot = i;
+          perSnake[i] = new Histogram();
+          SplittableRandom own = rnd.split();
+          executor.submit(() -> {
+            Snake s = snakes.get(slot);
+            long count = 0;
+            while (System.nanoTime() < deadline) {
+              if (own.nextInt(10) == 0) s.turn(Direction.values()[own.nextInt(4)]);
+              long t0 = System.nanoTime();
+              var res = board.step(s);
+              perSnake[slot].record(System.nanoTime() - t0, 1);
+              count++;
+              if (res == Board.MoveResult.HIT_OBSTACLE || res == Board.MoveResult.HIT_SNAKE) {
+                board.removeSnake(s);
+                s = placeSnake(board, nextId.getAndIncrement(), own);
+                respawned.incrementAndGet();
+              }
+              if (SLEEP_MS > 0) {
+                try {
+                  Thread.sleep(SLEEP_MS);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  break;
+                }
+              }
+            }
+            perSnakeSteps[slot] = count;
+          });
+        }
+      }
+      steps = 0;
+      for (int i = 0; i < n; i++) {
+        steps += perSnakeSteps[i];
+        latency.merge(perSnake[i]);
+      }
+      respawns = respawned.get();
+    }
+
+    long elapsed = System.nanoTime() - start;
+    var c = board.contention();
+    long gcCount = gcCount() - gcCount0, gcMs = gcMillis() - gcMs0;
+    double allocMb = (allocatedBytes() - alloc0) / (1024.0 * 1024.0);
+    double stepsPerSec = steps / (elapsed / 1e9);
+
+    System.out.printf("%d serpientes (%s, %s, %dx%d): %d pasos en %d ms, %.0f pasos/s, p50 %d ns, p99 %d ns%n",
+        n, ENGINE, MODE, width, height, steps, elapsed / 1_000_000, stepsPerSec, latency.percentile(0.50), latency.percentile(0.99));
+    System.out.printf("  lock: %d esperas, %d ms; CAS fallidos: %d; reemplazos: %d; GC: %d colecciones, %d ms; asignado: %.1f MB%n",
+        c.lockWaits(), c.lockWaitNanos() / 1_000_000, c.casFailures(), respawns, gcCount, gcMs, allocMb);
+
+    if (journalFile != null) {
+      long records = board.journal().size();
+      System.out.printf("  journal: %d registros en %s, checksum %016x%n", records + 1, journalFile, board.closeJournal());
+    }
+
+    return String.format(java.util.Locale.ROOT, "%d,%s,%s,%d,%d,%d,%d,%.0f,%d,%d,%d,%d,%d,%d,%d,%d,%.1f",
+        n, ENGINE, MODE, width, height, elapsed / 1_000_000, steps, stepsPerSec, latency.percentile(0.50), latency.percentile(0.99),
+        c.lockWaits(), c.lockWaitNanos() / 1_000_000, c.casFailures(), respawns, gcCount, gcMs, allocMb);
+  }
+
+  // Serpiente nueva en una celda al azar sin serpiente
+  private static Snake placeSnake(Board board, int id, SplittableRandom rnd) {
+    var dirs = Direction.values();
+    while (true) {
+      Snake s = Snake.of(id, rnd.nextInt(board.width()), rnd.nextInt(board.height()), dirs[rnd.nextInt(dirs.length)]);
+      if (board.addSnake(s)) return s;
+    }
+  }
+
+  private static long gcCount() {
+    long total = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionCount());
+    return total;
+  }
+
+  private static long gcMillis() {
+    long total = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionTime());
+    return total;
+  }
+
+  // Bytes asignados por todos los hilos (incluye los virtuales); 0 si la JVM no lo soporta
+  private static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+      return threads.getTotalThreadAllocatedBytes();
+    }
+    return 0;
+  }
+
+  // Histograma log-lineal de latencias (ns): 8 sub-cubetas por potencia de dos, error relativo < 12.5%
+  private static final class Histogram {
+    private static final int SUB = 8;
+    private final long[] counts = new long[64 * SUB];
+    private long total;
+
+    void record(long nanos, long times) {
+      counts[index(Math.max(1, nanos))] += times;
+      total += times;
+    }
+
+    void merge(Histogram other) {
+      for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+      total += other.total;
+    }
+
+    // Límite superior de la cubeta que contiene el percentil q
+    long percentile(double q) {
+      if (total == 0) return 0;
+      long rank = (long) Math.ceil(q * total);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) return upper(i);
+      }
+      return upper(counts.length - 1);
+    }
+
+    private static int index(long v) {
+      int exp = 63 - Long.numberOfLeadingZeros(v);
+      if (exp < 3) return (int) v;
+      int sub = (int) ((v >>> (exp - 3)) & (SUB - 1));
+      return exp * SUB + sub;
+    }
+
+    private static long upper(int i) {
+      int exp = i / SUB;
+      int sub = i % SUB;
+      if (exp < 3) return i;
+      return ((long) (SUB + sub + 1) << (exp - 3)) - 1;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package co.eci.snake.app;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.MoveJournal;
+import co.eci.snake.core.Snake;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reproduce un journal de MoveJournal en un solo hilo, sin pausas ni interfaz, tan rápido como dé la CPU.
+// Arma un Board con la misma semilla (el mismo tablero inicial) y aplica los registros en orden de seq: los items
+// aparecen donde dice el journal, cada paso se compara con lo grabado (resultado y cabeza; un TICK se vuelve a
+// aplicar como un solo movimiento simultáneo) y, al final, el checksum del tablero con el del END. Los huecos (seq
+// reservados que nunca se escribieron) se saltan y se cuentan; la reproducción sigue hasta el último registro.
+//
+//   -Djournal=archivo   journal a reproducir (obligatorio)
+//   -Dshow=N            cuántas diferencias detallar (por defecto 10)
+public final class Replay {
+  private static final int SHOW = Integer.getInteger("show", 10);
+
+  private Replay() {}
+
+  public static void main(String[] args) {
+    String file = System.getProperty("journal");
+    if (file == null) {
+      System.err.println("Uso: -Djournal=archivo");
+      return;
+    }
+
+    try (var journal = new MoveJournal.Reader(Path.of(file))) {
+      Result result = replay(journal);
+      System.out.printf("%d registros, %d pasos en %d ms (%.0f pasos/s)%n",
+          result.records(), result.moves(), result.nanos() / 1_000_000, result.moves() / (result.nanos() / 1e9));
+      result.details().forEach(d -> System.out.println("  " + d));
+      if (result.holes() > 0) {
+        System.out.printf("%d registros reservados sin escribir (huecos) se saltaron%n", result.holes());
+      }
+      if (!result.ended()) {
+        System.out.println("El journal no se cerró (sin END): se reprodujo hasta el último registro escrito");
+      } else if (result.divergences() == 0 && result.checksumMatches()) {
+        System.out.println("OK: la reproducción coincide con la partida grabada");
+      } else {
+        System.out.printf("DIFERENTE: %d diferencias, checksum %s%n",
+            result.divergences(), result.checksumMatches() ? "igual" : "distinto");
+      }
+    }
+  }
+
+  public record Result(long records, long moves, long holes, long nanos, long divergences, boolean ended,
+                       boolean checksumMatches, List<String> details) {}
+
+  public static Result replay(MoveJournal.Reader journal) {
+    Board board = new Board(journal.width(), journal.height(), Board.Mode.LOCKED, journal.seed());
+    board.stopSpawning();
+    Map<Integer, Snake> snakes = new HashMap<>();
+    var results = Board.MoveResult.values();
+    var dirs = Direction.values();
+    List<String> details = new ArrayList<>();
+    long moves = 0, holes = 0, divergences = 0;
+    boolean ended = false, checksumMatches = false;
+
+    long start = System.nanoTime();
+    long i = 0;
+    for (; i < journal.records(); i++) {
+      int type = journal.type(i);
+      if (type == MoveJournal.HOLE) {
+        holes++;
+        continue;
+      }
+      int id = journal.id(i), data = journal.data(i);
+      switch (type) {
+        case MoveJournal.SNAKE -> {
+          Snake s = Snake.of(id, data % board.width(), data / board.width(), Direction.RIGHT);
+          if (!board.addSnake(s) && divergences++ < SHOW) {
+            details.add(String.format("seq %d: la celda inicial %d de la serpiente %d está ocupada", journal.seq(i), data, id));
+          }
+          snakes.put(id, s);
+        }
+        case MoveJournal.REMOVE -> {
+          Snake s = snakes.remove(id);
+          if (s != null) board.removeSnake(s);
+        }
+        case MoveJournal.DEATH -> board.markDead(snakes.get(id));
+        case MoveJournal.SPAWN -> {
+          if (!board.placeItem(data, journal.info(i)) && divergences++ < SHOW) {
+            details.add(String.format("seq %d: la celda %d del item %d no está vacía", journal.seq(i), data, journal.info(i)));
+          }
+        }
+        case MoveJournal.MOVE, MoveJournal.TICK -> {
+          // Un MOVE suelto es un step; un TICK agrupa los n MOVE siguientes en un solo stepAll
+          int n = type == MoveJournal.TICK ? (int) Math.min(data, journal.records() - i - 1) : 1;
+          long first = type == MoveJournal.TICK ? i + 1 : i;
+          // Un MOVE del TICK que quedó sin escribir se cuenta como hueco y el resto se mueve igual
+          List<Snake> batch = new ArrayList<>(n);
+          List<Long> at = new ArrayList<>(n);
+          for (long r = first; r < first + n; r++) {
+            if (journal.type(r) == MoveJournal.HOLE) {
+              holes++;
+              continue;
+            }
+            Snake s = snakes.get(journal.id(r));
+            face(s, dirs[journal.info(r) & 3]);
+            batch.add(s);
+            at.add(r);
+          }
+          var got = new Board.MoveResult[batch.size()];
+          if (type == MoveJournal.TICK) {
+            board.stepAll(batch, got);
+          } else {
+            got[0] = board.step(batch.get(0));
+          }
+          for (int k = 0; k < got.length; k++) {
+            long r = at.get(k);
+            int head = cell(batch.get(k).headCell(), board.width());
+            var expected = results[journal.info(r) >>> 2];
+            if ((got[k] != expected || head != journal.data(r)) && divergences++ < SHOW) {
+              details.add(String.format("seq %d: serpiente %d grabado %s en %d, reproducido %s en %d",
+                  journal.seq(r), journal.id(r), expected, journal.data(r), got[k], head));
+            }
+          }
+          moves += got.length;
+          i = first + n - 1;
+        }
+        case MoveJournal.END -> {
+          ended = true;
+          long recorded = (long) id << 32 | (data & 0xFFFFFFFFL);
+          long replayed = board.checksum();
+          checksumMatches = recorded == replayed;
+          if (!checksumMatches) details.add(String.format("checksum grabado %016x, reproducido %016x", recorded, replayed));
+        }
+        default -> throw new IllegalStateException("Unknown record type " + type + " at " + i);
+      }
+    }
+    return new Result(i, moves, holes, System.nanoTime() - start, divergences, ended, checksumMatches, details);
+  }
+
+  // Deja a la serpiente mirando hacia dir. turn() rechaza dar media vuelta, pero en la partida pudo llegar a ella
+  // con dos giros entre pasos; aquí se hace lo mismo pasando por una dirección perpendicular
+  private static void face(Snake s, Direction dir) {
+    s.turn(dir);
+    if (s.direction() != dir) {
+      s.turn(dir == Direction.UP || dir == Direction.DOWN ? Direction.LEFT : Direction.UP);
+      s.turn(dir);
+    }
+  }
+
+  private static int cell(int packed, int width) {
+    return Snake.y(packed) * width + Snake.x(packed);
+  }
+}
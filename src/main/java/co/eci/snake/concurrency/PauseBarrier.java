@@ -0,0 +1,80 @@
+package co.eci.snake.concurrency;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// Pausa cooperativa de los SnakeRunner con un Phaser en el que también participa el controlador.
+// Los runners solo leen una variable volatile entre pasos; con una pausa pedida llegan al Phaser, así que
+// pause() retorna cuando todos están detenidos fuera de Board.step, y resume() los libera a todos a la vez.
+// Los runners duermen entre pasos con sleep(), que la pausa interrumpe: la latencia no depende del período.
+// Fase n: "todos detenidos"; fase n+1: "reanudar". Un Phaser admite hasta 65535 participantes.
+public final class PauseBarrier {
+  // Un participante para el controlador; cada runner se registra aparte
+  private final Phaser phaser = new Phaser(1);
+
+  private volatile boolean pauseRequested = false;
+  // Se abre al pedir la pausa para despertar a los runners que duermen entre pasos
+  private volatile CountDownLatch wake = new CountDownLatch(1);
+
+  // Últimas latencias medidas (ns): hasta que todos se detienen, y hasta que el último runner vuelve a correr
+  private volatile long lastPauseNanos = 0;
+  private volatile long resumeStart = 0;
+  private final LongAccumulator lastResumeNanos = new LongAccumulator(Math::max, 0);
+
+  // Registra un runner; debe hacerse antes de iniciarlo
+  public void register() {
+    phaser.register();
+  }
+
+  // El runner terminó (p. ej. su serpiente murió): deja de contar para las pausas
+  public void deregister() {
+    phaser.arriveAndDeregister();
+  }
+
+  // Llamado por los runners entre pasos
+  public void checkIn() {
+    if (!pauseRequested) return;
+    phaser.arriveAndAwaitAdvance(); // Avisar que este runner se detuvo
+    phaser.arriveAndAwaitAdvance(); // Esperar a que el controlador reanude
+    lastResumeNanos.accumulate(System.nanoTime() - resumeStart);
+  }
+
+  // Espera entre pasos; retorna antes si se pide una pausa
+  public void sleep(long millis) throws InterruptedException {
+    if (!pauseRequested) wake.await(millis, TimeUnit.MILLISECONDS);
+  }
+
+  // Pide la pausa y retorna cuando todos los runners registrados están detenidos (o terminaron)
+  public long pause() {
+    long start = System.nanoTime();
+    pauseRequested = true;
+    wake.countDown();
+    phaser.arriveAndAwaitAdvance();
+    lastPauseNanos = System.nanoTime() - start;
+    return lastPauseNanos;
+  }
+
+  // Libera a todos los runners detenidos
+  public void resume() {
+    wake = new CountDownLatch(1);
+    lastResumeNanos.reset();
+    resumeStart = System.nanoTime();
+    pauseRequested = false;
+    phaser.arriveAndAwaitAdvance();
+  }
+
+  public boolean isPaused() {
+    return pauseRequested;
+  }
+
+  public long getLastPauseNanos() {
+    return lastPauseNanos;
+  }
+
+  // Se completa a medida que los runners despiertan después de resume()
+  public long getLastResumeNanos() {
+    return lastResumeNanos.get();
+  }
+}
@@ -1,11 +1,11 @@
 package co.eci.snake.concurrency;
 
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import co.eci.snake.core.Board;
 import co.eci.snake.core.Direction;
 import co.eci.snake.core.GameController;
-import co.eci.snake.core.GameState;
 import co.eci.snake.core.Snake;
 
 public final class SnakeRunner implements Runnable {
@@ -15,11 +15,26 @@ public final class SnakeRunner implements Runnable {
   private final int turboSleepMs = 40;
   private int turboTicks = 0;
   private final GameController controller;
+  private final PauseBarrier barrier;
+  // Generador con semilla para grabar partidas (null: ThreadLocalRandom)
+  private final Random random;
 
   public SnakeRunner(Snake snake, Board board, GameController controller) {
+        this(snake, board, controller, null);
+  }
+
+  // Con semilla, los giros de cada serpiente salen de su propio generador (seed ^ id)
+  public SnakeRunner(Snake snake, Board board, GameController controller, long seed) {
+        this(snake, board, controller, new Random(seed ^ snake.id()));
+  }
+
+  private SnakeRunner(Snake snake, Board board, GameController controller, Random random) {
         this.snake = snake;
         this.board = board;
         this.controller = controller;
+        this.random = random;
+        this.barrier = controller.pauseBarrier();
+        barrier.register(); // Registrar antes de iniciar para que cuente en la primera pausa
   }
 
   @Override
@@ -33,7 +48,7 @@ public final class SnakeRunner implements Runnable {
                 maybeTurn();
                 var res = board.step(snake);
                 
-                if (res == Board.MoveResult.HIT_OBSTACLE) {
+                if (res == Board.MoveResult.HIT_OBSTACLE || res == Board.MoveResult.HIT_SNAKE) {
                     snake.markDead(); // Registrar muerte
                     break; // Terminar el hilo
                 } else if (res == Board.MoveResult.ATE_MOUSE) {
@@ -44,27 +59,31 @@ public final class SnakeRunner implements Runnable {
                 
                 int sleep = (turboTicks > 0) ? turboSleepMs : baseSleepMs;
                 if (turboTicks > 0) turboTicks--;
-                Thread.sleep(sleep);
+                barrier.sleep(sleep); // Una pausa la interrumpe
             }
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
+        } finally {
+            barrier.deregister();
         }
     }
 
   private void maybeTurn() {
     double p = (turboTicks > 0) ? 0.05 : 0.10;
-    if (ThreadLocalRandom.current().nextDouble() < p) randomTurn();
+    if (random().nextDouble() < p) randomTurn();
   }
 
   private void randomTurn() {
     var dirs = Direction.values();
-    snake.turn(dirs[ThreadLocalRandom.current().nextInt(dirs.length)]);
+    snake.turn(dirs[random().nextInt(dirs.length)]);
   }
 
-  private void checkAndWaitIfPaused() throws InterruptedException {
-        // Si el estado es PAUSED, esperar aquí
-        while (controller.getState() == GameState.PAUSED) {
-            Thread.sleep(100); // Verificar cada 100ms
-        }
+  private Random random() {
+    return random != null ? random : ThreadLocalRandom.current();
+  }
+
+  private void checkAndWaitIfPaused() {
+        // Si hay una pausa pedida, detenerse en la barrera hasta que el controlador reanude
+        barrier.checkIn();
   }
 }
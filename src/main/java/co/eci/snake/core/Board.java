@@ -1,117 +1,960 @@
 package co.eci.snake.core;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 
 public final class Board {
   private final int width;
   private final int height;
 
-  // Colecciones concurrentes para mejor rendimiento con múltiples serpientes
-  private final Set<Position> mice = ConcurrentHashMap.newKeySet();
-  private final Set<Position> obstacles = ConcurrentHashMap.newKeySet();
-  private final Set<Position> turbo = ConcurrentHashMap.newKeySet();
-  private final Map<Position, Position> teleports = new ConcurrentHashMap<>();
-  
+  // Tipos de celda
+  private static final byte EMPTY = 0, MOUSE = 1, OBSTACLE = 2, TURBO = 3, TELEPORT = 4;
+  private static final int KINDS = 5;
+  // Modo LOCK_FREE: la celda está tomada por un hilo que actualiza sus índices (pasa a un item o vuelve a EMPTY)
+  private static final byte BUSY = 5;
+
+  // Acceso a la grilla: lecturas acquire, escrituras release (con lock) o CAS (modo LOCK_FREE)
+  private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(byte[].class);
+  private static final VarHandle OWNER = MethodHandles.arrayElementVarHandle(int[].class);
+  private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(int[].class);
+  private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final VarHandle TICK = MethodHandles.arrayElementVarHandle(int[].class);
+
+  // Grilla primitiva indexada por y*width+x: tipo de cada celda, sin Position ni hashing
+  private final byte[] cells;
+  // Destino de cada celda de teletransporte (solo válido si cells[i] == TELEPORT)
+  private final int[] teleportTo;
+  // Celdas de cada tipo en un arreglo denso; slot[i] es la posición de la celda i en el arreglo de su tipo.
+  // Las celdas libres forman el tipo EMPTY, así que elegir una al azar o mover una celda de tipo es O(1)
+  private final int[][] members = new int[KINDS][];
+  private final int[] count = new int[KINDS];
+  private final int[] slot;
+
+  // Índices del modo LOCK_FREE, mantenidos con CAS (members solo sigue a los teleports, que no cambian):
+  // itemAt es una tabla de slots con la celda+1 de cada ratón, obstáculo o turbo (0: slot libre) y slot[c] el slot
+  // del item en c. Una celda solo recibe o suelta su slot mientras está en BUSY, así que nunca tiene dos.
+  // occupied tiene un bit por celda no vacía y full un bit por palabra de occupied llena, para encontrar una celda
+  // libre sin recorrer la grilla cuando el tablero está casi lleno
+  private final int[] itemAt;
+  private final AtomicInteger itemHigh = new AtomicInteger(); // Slots usados alguna vez: las vistas recorren [0, itemHigh)
+  private volatile int lastFreed = -1;                         // Último slot liberado, el primero que se intenta reusar
+  private final long[] occupied;
+  private final long[] full;
+
+  // Índice de dueños: (id+1)<<1 de la serpiente que ocupa cada celda (0 si está libre); el bit 0 marca su cabeza.
+  // Se actualiza con CAS al mover, así que detectar choques entre cuerpos es O(1) sin recorrer serpientes
+  private final int[] owner;
+  private final Map<Integer, Snake> snakes = new ConcurrentHashMap<>();
+  // Movimiento simultáneo (stepAll): id+1 de quien gana cada celda destino e índice+1 en el lote de la serpiente
+  // que suelta cada cola. Se crean con el primer lote y quedan en cero entre lotes
+  private int[] tickTarget;
+  private int[] tickTail;
+  // Estado por serpiente del lote, reutilizado entre lotes (crece con el lote más grande)
+  private Direction[] tickDirs;
+  private int[] tickNext, tickEnteredBy;
+  private boolean[] tickGrow, tickOk;
+  // Por debajo de este tamaño de lote las fases de stepAll no se reparten entre hilos
+  private static final int PARALLEL_BATCH = 256;
+
   // Lock explícito solo para operaciones compuestas críticas
   private final ReentrantLock modificationLock = new ReentrantLock();
 
-  public enum MoveResult { MOVED, ATE_MOUSE, HIT_OBSTACLE, ATE_TURBO, TELEPORTED }
+  // Intentos de celda libre al azar antes de buscar en el mapa de ocupación (modo LOCK_FREE)
+  private static final int SPAWN_PROBES = 64;
+  // Intentos de slot libre al azar antes de usar uno nuevo de la tabla de items
+  private static final int SLOT_PROBES = 4;
+
+  private final Mode mode;
+
+  // Generador con semilla para partidas reproducibles (null: ThreadLocalRandom)
+  private final Random random;
+
+  // Contadores de contención: pasos, pasos que esperaron el lock y cuánto, CAS que perdieron contra otro hilo
+  private final LongAdder steps = new LongAdder();
+  private final LongAdder lockWaits = new LongAdder();
+  private final LongAdder lockWaitNanos = new LongAdder();
+  private final LongAdder casFailures = new LongAdder();
+
+  public enum MoveResult { MOVED, ATE_MOUSE, HIT_OBSTACLE, ATE_TURBO, TELEPORTED, HIT_SNAKE }
+
+  // LOCKED: consumo y aparición de items bajo modificationLock.
+  // LOCK_FREE: cada celda cambia con CAS; serpientes en celdas distintas nunca compiten
+  public enum Mode { LOCKED, LOCK_FREE }
+
+  public record Contention(long steps, long lockWaits, long lockWaitNanos, long casFailures) {}
+
+  // Items como celdas (y*width+x); teleports va en pares (origen, destino). Inmutable: no modificar los arreglos
+  public record Items(long version, int[] mice, int[] obstacles, int[] turbo, int[] teleports) {}
+
+  // Cambia con cada item que aparece o se consume; mientras no cambie, items() devuelve el mismo objeto
+  private final AtomicLong itemVersion = new AtomicLong();
+  private volatile Items items;
+
+  // Journal de la partida (null: no se graba). Grabando, cada paso toma los stripes de las celdas que toca (cabeza,
+  // destino y cola) y su seq al reclamar la celda; los pasos que no comparten celdas siguen en paralelo y los que sí
+  // quedan en el journal en el orden en que se aplicaron. Los items que aparecen toman su seq al escribir la celda
+  private volatile MoveJournal journal;
+  private static final int STRIPES = 1024;
+  private ReentrantLock[] stripes;
+  // En una reproducción los items no se generan: Replay los pone desde el journal con placeItem
+  private volatile boolean spawning = true;
 
   public Board(int width, int height) {
+    this(width, height, Mode.LOCKED);
+  }
+
+  public Board(int width, int height, Mode mode) {
+    this(width, height, mode, null);
+  }
+
+  // Con semilla, la aparición de items es reproducible si los pasos se aplican en el mismo orden (motor por ticks)
+  public Board(int width, int height, Mode mode, long seed) {
+    this(width, height, mode, new Random(seed));
+  }
+
+  private Board(int width, int height, Mode mode, Random random) {
     if (width <= 0 || height <= 0) throw new IllegalArgumentException("Board dimensions must be positive");
+    if ((long) width * height > Integer.MAX_VALUE) throw new IllegalArgumentException("Board too large");
+    if (width > 0x10000 || height > 0x10000) throw new IllegalArgumentException("Board side too large");
     this.width = width;
     this.height = height;
-    for (int i=0;i<6;i++) mice.add(randomEmpty());
-    for (int i=0;i<4;i++) obstacles.add(randomEmpty());
-    for (int i=0;i<3;i++) turbo.add(randomEmpty());
+    this.mode = Objects.requireNonNull(mode, "mode");
+    this.random = random;
+    int size = width * height;
+    this.cells = new byte[size];
+    this.teleportTo = new int[size];
+    this.slot = new int[size];
+    this.owner = new int[size];
+    members[EMPTY] = new int[size];
+    for (int i = 0; i < size; i++) {
+      members[EMPTY][i] = i;
+      slot[i] = i;
+    }
+    count[EMPTY] = size;
+    for (int k = 1; k < KINDS; k++) members[k] = new int[8];
+
+    for (int i=0;i<6;i++) spawn(MOUSE);
+    for (int i=0;i<4;i++) spawn(OBSTACLE);
+    for (int i=0;i<3;i++) spawn(TURBO);
     createTeleportPairs(2);
+
+    if (mode == Mode.LOCK_FREE) {
+      this.itemAt = new int[size];
+      this.occupied = new long[(size + 63) >>> 6];
+      this.full = new long[(occupied.length + 63) >>> 6];
+      // Los bits de más al final cuentan como ocupados para que las últimas palabras puedan quedar llenas
+      if ((size & 63) != 0) occupied[occupied.length - 1] = -1L << (size & 63);
+      if ((occupied.length & 63) != 0) full[full.length - 1] = -1L << (occupied.length & 63);
+      for (int cell = 0; cell < size; cell++) {
+        if (cells[cell] != EMPTY) markOccupied(cell);
+      }
+      for (byte kind : new byte[] {MOUSE, OBSTACLE, TURBO}) {
+        for (int i = 0; i < count[kind]; i++) {
+          int cell = members[kind][i];
+          slot[cell] = claimSlot(cell);
+        }
+      }
+    } else {
+      this.itemAt = null;
+      this.occupied = null;
+      this.full = null;
+    }
   }
 
   public int width() { return width; }
   public int height() { return height; }
+  public Mode mode() { return mode; }
+
+  public Contention contention() {
+    return new Contention(steps.sum(), lockWaits.sum(), lockWaitNanos.sum(), casFailures.sum());
+  }
+
+  // Copias de solo lectura; recorren solo las celdas del tipo pedido
+  public Set<Position> mice() { return positions(MOUSE); }
+  public Set<Position> obstacles() { return positions(OBSTACLE); }
+  public Set<Position> turbo() { return positions(TURBO); }
+  public Map<Position, Position> teleports() {
+    modificationLock.lock();
+    try {
+      Map<Position, Position> out = new HashMap<>();
+      for (int i = 0; i < count[TELEPORT]; i++) {
+        int cell = members[TELEPORT][i];
+        out.put(position(cell), position(teleportTo[cell]));
+      }
+      return out;
+    } finally {
+      modificationLock.unlock();
+    }
+  }
+
+  // Celda a la que llegaría la serpiente con su dirección actual (después del teleport), o -1 si es un obstáculo.
+  // Solo lee la grilla; el motor por ticks la usa para resolver conflictos antes de aplicar los pasos
+  public int target(Snake snake) {
+    int head = snake.headCell();
+    var dir = snake.direction();
+    int next = Math.floorMod(Snake.y(head) + dir.dy, height) * width + Math.floorMod(Snake.x(head) + dir.dx, width);
+    byte kind = (byte) CELL.getAcquire(cells, next);
+    if (kind == OBSTACLE) return -1;
+    return kind == TELEPORT ? teleportTo[next] : next;
+  }
+
+  // Movimiento simultáneo del motor por ticks: cada serpiente del lote da un paso y todo se decide contra el estado
+  // previo, así que el resultado no depende del orden del lote. Las colas que se sueltan en este movimiento cuentan
+  // como libres y las cabezas que pasan a ser cuello como cuerpo; si varias van a la misma celda gana el id menor y
+  // las demás chocan, y dos cabezas que se cruzan chocan las dos. Los items aparecen al final, en orden del lote.
+  // Supone que nadie más mueve serpientes mientras tanto (en modo LOCKED se hace bajo el lock)
+  public void stepAll(List<Snake> batch, MoveResult[] out) {
+    stepAll(batch.toArray(new Snake[0]), batch.size(), out);
+  }
+
+  // Igual, con las primeras n serpientes del arreglo (el motor por ticks reutiliza el mismo arreglo en cada tick)
+  public void stepAll(Snake[] batch, int n, MoveResult[] out) {
+    if (mode == Mode.LOCK_FREE) {
+      stepSimultaneous(batch, n, out);
+      return;
+    }
+    lockCounted();
+    try {
+      stepSimultaneous(batch, n, out);
+    } finally {
+      modificationLock.unlock();
+    }
+  }
+
+  // Las fases por serpiente se reparten en el ForkJoinPool (cada una escribe solo sus posiciones de los arreglos y
+  // sus propias celdas, y la celda ganada se decide con CAS sobre el id menor); comer y hacer aparecer items toca
+  // los índices de la grilla y el generador, así que va en un solo hilo y en orden del lote
+  private void stepSimultaneous(Snake[] batch, int n, MoveResult[] out) {
+    if (tickTarget == null) {
+      tickTarget = new int[cells.length];
+      tickTail = new int[cells.length];
+    }
+    if (tickNext == null || tickNext.length < n) {
+      int size = Math.max(n, tickNext == null ? 0 : 2 * tickNext.length);
+      tickDirs = new Direction[size];
+      tickNext = new int[size];
+      tickEnteredBy = new int[size];
+      tickGrow = new boolean[size];
+      tickOk = new boolean[size];
+    }
+    Direction[] dirs = tickDirs;
+    int[] next = tickNext, enteredBy = tickEnteredBy;
+    boolean[] grow = tickGrow, ok = tickOk;
+
+    // 1. Destinos, contra la grilla y los cuerpos de antes del tick. tickTarget guarda id+1 del ganador de cada celda
+    each(n).forEach(i -> {
+      Snake s = batch[i];
+      dirs[i] = s.direction();
+      next[i] = -1;
+      enteredBy[i] = -1;
+      ok[i] = false;
+      grow[i] = false;
+      if (s.isDead()) {
+        out[i] = MoveResult.HIT_SNAKE;
+        return;
+      }
+      int head = s.headCell();
+      int to = Math.floorMod(Snake.y(head) + dirs[i].dy, height) * width + Math.floorMod(Snake.x(head) + dirs[i].dx, width);
+      byte kind = (byte) CELL.getAcquire(cells, to);
+      if (kind == OBSTACLE) {
+        out[i] = MoveResult.HIT_OBSTACLE;
+        return;
+      }
+      out[i] = kind == TELEPORT ? MoveResult.TELEPORTED : MoveResult.MOVED;
+      if (kind == TELEPORT) to = teleportTo[to];
+      next[i] = to;
+      int tail = cell(s.tailCell());
+      grow[i] = (byte) CELL.getAcquire(cells, to) == MOUSE && !(to == tail && s.length() > 1);
+      if (!grow[i] && s.length() >= s.maxLength()) TICK.setRelease(tickTail, tail, i + 1);
+      int mine = s.id() + 1;
+      int w;
+      do {
+        w = (int) TICK.getAcquire(tickTarget, to);
+      } while ((w == 0 || w > mine) && !TICK.compareAndSet(tickTarget, to, w, mine));
+    });
+
+    // 2. Conflictos: celda ganada y libre antes del tick (o una cola que se suelta), sin cruzarse con otra cabeza.
+    // Cada cola la entra a lo sumo el ganador de esa celda, así que enteredBy[j] tiene un solo escritor
+    each(n).forEach(i -> {
+      int to = next[i];
+      if (to < 0 || (int) TICK.getAcquire(tickTarget, to) != batch[i].id() + 1) return;
+      int j = (int) TICK.getAcquire(tickTail, to) - 1;
+      if (j >= 0) {
+        // Una serpiente de largo 1 suelta su cabeza: entrar ahí mientras ella entra en la nuestra es cruzarse
+        ok[i] = j == i || next[j] != cell(batch[i].headCell());
+        if (ok[i] && j != i) enteredBy[j] = i;
+      } else {
+        ok[i] = (int) OWNER.getAcquire(owner, to) == 0;
+      }
+    });
+    // Si la dueña de una cola no se mueve, la cola no se suelta y quien entraba en ella choca (en cadena)
+    for (int i = 0; i < n; i++) {
+      if (ok[i]) continue;
+      for (int k = enteredBy[i]; k >= 0 && ok[k]; k = enteredBy[k]) ok[k] = false;
+    }
+
+    // 3. Soltar cuellos y colas de las que se mueven (y dejar tickTarget y tickTail en cero); después cada cabeza
+    // nueva entra en una celda ya libre
+    each(n).forEach(i -> {
+      Snake s = batch[i];
+      if (next[i] >= 0) TICK.setRelease(tickTarget, next[i], 0);
+      if (s.isDead()) return;
+      TICK.setRelease(tickTail, cell(s.tailCell()), 0);
+      if (!ok[i]) return;
+      int mine = code(s);
+      int head = cell(s.headCell());
+      boolean drops = !grow[i] && s.length() >= s.maxLength();
+      if (s.length() == 1 && drops) {
+        OWNER.compareAndSet(owner, head, mine | 1, 0);
+      } else {
+        OWNER.compareAndSet(owner, head, mine | 1, mine);
+        if (drops) OWNER.compareAndSet(owner, cell(s.tailCell()), mine, 0);
+      }
+    });
+    int eaten = 0;
+    for (int i = 0; i < n; i++) {
+      if (!ok[i]) continue;
+      int to = next[i];
+      byte kind = (byte) CELL.getAcquire(cells, to);
+      if (kind == TURBO || grow[i]) {
+        eat(to, kind);
+        out[i] = kind == TURBO ? MoveResult.ATE_TURBO : MoveResult.ATE_MOUSE;
+        if (grow[i]) eaten++;
+      }
+    }
+    each(n).forEach(i -> {
+      Snake s = batch[i];
+      if (!ok[i]) {
+        if (out[i] != MoveResult.HIT_OBSTACLE) out[i] = MoveResult.HIT_SNAKE;
+        s.markDead();
+        return;
+      }
+      int to = next[i];
+      OWNER.setRelease(owner, to, code(s) | 1);
+      s.advance(to % width, to / width, grow[i]);
+      steps.increment();
+    });
+
+    // El lote ocupa un bloque seguido del journal: TICK y sus MOVE, antes que los items que genera
+    MoveJournal recording = journal;
+    if (recording != null) {
+      long seq = recording.reserve(n + 1);
+      recording.tick(seq, n);
+      for (int i = 0; i < n; i++) recording.move(seq + 1 + i, batch[i], dirs[i], out[i], cell(batch[i].headCell()));
+    }
+
+    // 4. Items nuevos, uno por ratón comido y en orden del lote: con semilla se repiten igual
+    for (int k = 0; k < eaten; k++) spawnAfterMouse();
+  }
 
-  // Getters ya no necesitan synchronized - las colecciones son thread-safe
-  public Set<Position> mice() { return new HashSet<>(mice); }
-  public Set<Position> obstacles() { return new HashSet<>(obstacles); }
-  public Set<Position> turbo() { return new HashSet<>(turbo); }
-  public Map<Position, Position> teleports() { return new HashMap<>(teleports); }
+  // Recorrido de las fases por serpiente de stepAll: en paralelo con lotes grandes y más de un hilo en el pool
+  private static IntStream each(int n) {
+    IntStream range = IntStream.range(0, n);
+    return n >= PARALLEL_BATCH && ForkJoinPool.getCommonPoolParallelism() > 1 ? range.parallel() : range;
+  }
+
+  // Lo que aparece al comerse un ratón: otro ratón, un obstáculo y a veces un turbo (en modo LOCKED, bajo el lock)
+  private void spawnAfterMouse() {
+    if (!spawning) return;
+    if (mode == Mode.LOCK_FREE) {
+      spawnLockFree(MOUSE);
+      spawnLockFree(OBSTACLE);
+      if (random().nextDouble() < 0.2) spawnLockFree(TURBO);
+    } else {
+      spawn(MOUSE);
+      spawn(OBSTACLE);
+      if (random().nextDouble() < 0.2) spawn(TURBO);
+    }
+  }
+
+  // Consume el item de la celda (en modo LOCKED bajo el lock)
+  private void eat(int cell, byte kind) {
+    if (mode == Mode.LOCKED) {
+      setKind(cell, EMPTY);
+    } else {
+      consumeLockFree(cell, kind);
+    }
+  }
 
   public MoveResult step(Snake snake) {
     Objects.requireNonNull(snake, "snake");
-    
-    // Fase 1: Cálculo (sin lock) - cada serpiente puede calcular simultáneamente
-    var head = snake.head();
     var dir = snake.direction();
-    Position next = new Position(head.x() + dir.dx, head.y() + dir.dy).wrap(width, height);
+    MoveJournal recording = journal;
+    if (recording == null) return dieOnHit(snake, move(snake, dir, null));
 
-    // Fase 2: Verificación de obstáculos (lectura, sin lock) - ConcurrentHashMap permite lecturas concurrentes
-    if (obstacles.contains(next)) return MoveResult.HIT_OBSTACLE;
+    int head = snake.headCell();
+    int held = lockStripes(cell(head), destination(head, dir), cell(snake.tailCell()));
+    try {
+      return dieOnHit(snake, move(snake, dir, recording));
+    } finally {
+      unlockStripes(held);
+    }
+  }
+
+  // Chocar mata a la serpiente dentro del paso, antes de que otra pueda disputarle la cabeza
+  private static MoveResult dieOnHit(Snake snake, MoveResult result) {
+    if (result == MoveResult.HIT_OBSTACLE || result == MoveResult.HIT_SNAKE) snake.markDead();
+    return result;
+  }
+
+  // Grabando, el paso ocupa en el journal el seq que tomó al decidirse (reclamar la celda o chocar)
+  private MoveResult recorded(MoveJournal recording, long seq, Snake snake, Direction dir, MoveResult result) {
+    if (recording != null) recording.move(seq, snake, dir, result, cell(snake.headCell()));
+    return result;
+  }
 
-    // Verificar teleport (lectura, sin lock)
+  private static long reserve(MoveJournal recording) {
+    return recording == null ? -1 : recording.reserve();
+  }
+
+  private MoveResult move(Snake snake, Direction dir, MoveJournal recording) {
+    // Una serpiente que perdió un choque de cabezas queda muerta hasta su siguiente paso
+    if (snake.isDead()) return recorded(recording, reserve(recording), snake, dir, MoveResult.HIT_SNAKE);
+
+    // Fase 1: Cálculo (sin lock) - cada serpiente puede calcular simultáneamente
+    int head = snake.headCell();
+    int current = cell(head);
+    int next = Math.floorMod(Snake.y(head) + dir.dy, height) * width + Math.floorMod(Snake.x(head) + dir.dx, width);
+
+    // Fase 2: Verificación de obstáculos y teleports (lectura de la grilla, sin lock)
+    byte kind = (byte) CELL.getAcquire(cells, next);
+    if (kind == OBSTACLE) return recorded(recording, reserve(recording), snake, dir, MoveResult.HIT_OBSTACLE);
     boolean teleported = false;
-    Position destination = teleports.get(next);
-    if (destination != null) {
-      next = destination;
+    if (kind == TELEPORT) {
+      next = teleportTo[next];
       teleported = true;
     }
 
+    // Cuerpos de serpientes: reclamar la celda en el índice de dueños antes de moverse
+    if (!claim(snake, next)) return recorded(recording, reserve(recording), snake, dir, MoveResult.HIT_SNAKE);
+    long seq = reserve(recording);
+    // Entrar en la propia cola solo se permite si se suelta en este paso: ahí no se come aunque aparezca un ratón
+    boolean ownTail = next == cell(snake.tailCell()) && snake.length() > 1;
+
+    steps.increment();
+    if (mode == Mode.LOCK_FREE) return recorded(recording, seq, snake, dir, stepLockFree(snake, current, next, teleported, ownTail));
+
     // Fase 3: Modificación crítica (con lock) - solo esta parte necesita exclusión mutua
     boolean ateMouse = false;
     boolean ateTurbo = false;
-    
-    modificationLock.lock();
+    int removed;
+
+    lockCounted();
     try {
       // Intentar consumir items - operación atómica
-      ateMouse = mice.remove(next);
-      ateTurbo = turbo.remove(next);
-      
+      kind = cells[next];
+      ateMouse = kind == MOUSE && !ownTail;
+      ateTurbo = kind == TURBO;
+      if (ateMouse || ateTurbo) setKind(next, EMPTY);
+
       // Avanzar serpiente dentro del lock para garantizar atomicidad
-      snake.advance(next, ateMouse);
-      
+      removed = snake.advance(next % width, next / width, ateMouse);
+
       // Generar nuevos elementos si se comió un ratón
-      if (ateMouse) {
-        mice.add(randomEmpty());
-        obstacles.add(randomEmpty());
-        if (ThreadLocalRandom.current().nextDouble() < 0.2) {
-          turbo.add(randomEmpty());
-        }
-      }
+      if (ateMouse) spawnAfterMouse();
     } finally {
       modificationLock.unlock();
     }
+    release(snake, current, next, removed);
 
     // Fase 4: Retornar resultado (sin lock)
+    MoveResult result = ateTurbo ? MoveResult.ATE_TURBO : ateMouse ? MoveResult.ATE_MOUSE
+        : teleported ? MoveResult.TELEPORTED : MoveResult.MOVED;
+    return recorded(recording, seq, snake, dir, result);
+  }
+
+  // Fase 3 sin lock: comer es un CAS MOUSE/TURBO -> BUSY sobre la celda, así que un ratón se come una sola vez
+  private MoveResult stepLockFree(Snake snake, int current, int next, boolean teleported, boolean ownTail) {
+    byte kind = (byte) CELL.getAcquire(cells, next);
+    boolean ateMouse = false;
+    boolean ateTurbo = false;
+    if (kind == TURBO || kind == MOUSE && !ownTail) {
+      if (consumeLockFree(next, kind)) {
+        ateMouse = kind == MOUSE;
+        ateTurbo = kind == TURBO;
+      } else {
+        casFailures.increment(); // Otra serpiente lo comió primero
+      }
+    }
+
+    release(snake, current, next, snake.advance(next % width, next / width, ateMouse));
+    if (ateMouse) spawnAfterMouse();
+
     if (ateTurbo) return MoveResult.ATE_TURBO;
     if (ateMouse) return MoveResult.ATE_MOUSE;
     if (teleported) return MoveResult.TELEPORTED;
     return MoveResult.MOVED;
   }
 
+  // Retira una serpiente del tablero: sus celdas dejan de contar como cuerpo (p. ej. para reemplazar una muerta)
+  public void removeSnake(Snake snake) {
+    int[] body = snake.cells(width);
+    MoveJournal recording = journal;
+    int[] held = recording == null ? null : stripesOf(body);
+    if (held != null) lockStripes(held);
+    try {
+      int mine = code(snake);
+      for (int cell : body) {
+        if (!OWNER.compareAndSet(owner, cell, mine, 0)) OWNER.compareAndSet(owner, cell, mine | 1, 0);
+      }
+      if (snakes.remove(snake.id(), snake) && recording != null) recording.remove(snake);
+    } finally {
+      if (held != null) unlockStripes(held);
+    }
+  }
+
+  // Muerte decidida fuera de step; grabando, queda en el journal
+  public void markDead(Snake snake) {
+    MoveJournal recording = journal;
+    if (recording == null) {
+      snake.markDead();
+      return;
+    }
+    int head = cell(snake.headCell());
+    int held = lockStripes(head, head, head);
+    try {
+      if (!snake.isDead()) {
+        recording.death(snake);
+      }
+      snake.markDead();
+    } finally {
+      unlockStripes(held);
+    }
+  }
+
+  // Empieza a grabar en el journal, antes de mover serpientes. Solo con semilla: la reproducción arma el mismo
+  // tablero inicial y después pone los items que fueron apareciendo
+  public void setJournal(MoveJournal journal) {
+    if (random == null) throw new IllegalStateException("Recording requires a seeded board");
+    if (journal.width() != width || journal.height() != height) throw new IllegalArgumentException("Journal size does not match the board");
+    if (stripes == null) {
+      var locks = new ReentrantLock[STRIPES];
+      for (int i = 0; i < STRIPES; i++) locks[i] = new ReentrantLock();
+      stripes = locks;
+    }
+    this.journal = journal;
+  }
+
+  public MoveJournal journal() {
+    return journal;
+  }
+
+  // Cierra el journal con el checksum del tablero en ese instante; devuelve el checksum. Toma todos los stripes, así
+  // que espera a los pasos en curso y ninguno queda a medias en el checksum
+  public long closeJournal() {
+    int[] all = null;
+    if (stripes != null) {
+      all = new int[STRIPES];
+      for (int i = 0; i < STRIPES; i++) all[i] = i;
+      lockStripes(all);
+    }
+    modificationLock.lock();
+    try {
+      long sum = checksum();
+      if (journal != null) journal.close(sum);
+      journal = null;
+      return sum;
+    } finally {
+      modificationLock.unlock();
+      if (all != null) unlockStripes(all);
+    }
+  }
+
+  // Reproducción: el tablero deja de generar items y placeItem pone los del journal
+  public void stopSpawning() {
+    spawning = false;
+  }
+
+  // Pone un item (código de kindAt) en una celda vacía; devuelve false si la celda no estaba vacía
+  public boolean placeItem(int cell, int kind) {
+    if (mode == Mode.LOCK_FREE) return insertLockFree(cell, (byte) kind);
+    modificationLock.lock();
+    try {
+      if (cells[cell] != EMPTY) return false;
+      setKind(cell, (byte) kind);
+      return true;
+    } finally {
+      modificationLock.unlock();
+    }
+  }
+
+  // Huella del estado: tipo de cada celda, teleports y dueño de cada celda (cuerpos y cabezas de las serpientes)
+  public long checksum() {
+    modificationLock.lock();
+    try {
+      long h = 0xcbf29ce484222325L;
+      for (int i = 0; i < cells.length; i++) {
+        byte kind = (byte) CELL.getAcquire(cells, i);
+        h = (h ^ kind) * 0x100000001b3L;
+        if (kind == TELEPORT) h = (h ^ teleportTo[i]) * 0x100000001b3L;
+        h = (h ^ (int) OWNER.getAcquire(owner, i)) * 0x100000001b3L;
+      }
+      return h;
+    } finally {
+      modificationLock.unlock();
+    }
+  }
+
+  // Tipo de item de la celda: 0 vacía, 1 ratón, 2 obstáculo, 3 turbo, 4 teleport (los mismos códigos del journal);
+  // en modo LOCK_FREE puede verse 5 mientras otro hilo pone o saca un item
+  public int kindAt(int cell) {
+    return (byte) CELL.getAcquire(cells, cell);
+  }
+
+  // Pone la serpiente en el tablero: ocupa su celda inicial en el índice de dueños. Hay que hacerlo antes de su
+  // primer paso; devuelve false (y no la agrega) si otra serpiente ya ocupa esa celda
+  public boolean addSnake(Snake snake) {
+    int start = cell(snake.headCell());
+    MoveJournal recording = journal;
+    int held = recording == null ? -1 : lockStripes(start, start, start);
+    try {
+      if (!OWNER.compareAndSet(owner, start, 0, code(snake) | 1)) return false;
+      snakes.put(snake.id(), snake);
+      if (recording != null) recording.snake(snake, start);
+      return true;
+    } finally {
+      if (held >= 0) unlockStripes(held);
+    }
+  }
+
+  // Reclama la celda como nueva cabeza. Falla si la ocupa un cuerpo (propio o ajeno), salvo la cola propia cuando
+  // este paso la suelta (largo completo y sin ratón en la celda). Si la ocupa la cabeza de otra serpiente viva es un choque de cabezas: gana el id menor,
+  // sin importar quién llegó primero, y la perdedora queda muerta
+  private boolean claim(Snake snake, int next) {
+    int mine = code(snake);
+    while (true) {
+      int o = (int) OWNER.getAcquire(owner, next);
+      if (o == 0) {
+        if (OWNER.compareAndSet(owner, next, 0, mine | 1)) return true;
+      } else if ((o & ~1) == mine) {
+        if (o != mine || next != cell(snake.tailCell())) return false;
+        if (snake.length() < snake.maxLength() || (byte) CELL.getAcquire(cells, next) == MOUSE) return false;
+        if (OWNER.compareAndSet(owner, next, o, mine | 1)) return true;
+      } else {
+        Snake other = snakes.get((o >>> 1) - 1);
+        if ((o & 1) == 0 || other == null || other.isDead() || other.id() < snake.id()) return false;
+        if (OWNER.compareAndSet(owner, next, o, mine | 1)) {
+          other.markDead();
+          return true;
+        }
+      }
+      casFailures.increment();
+    }
+  }
+
+  // Tras avanzar: la cabeza anterior pasa a ser cuerpo y la cola soltada queda libre
+  private void release(Snake snake, int previousHead, int next, int removed) {
+    int mine = code(snake);
+    if (previousHead != next) OWNER.compareAndSet(owner, previousHead, mine | 1, mine);
+    if (removed != Snake.NONE) {
+      int tail = cell(removed);
+      if (tail != next) OWNER.compareAndSet(owner, tail, mine, 0);
+    }
+  }
+
+  private static int code(Snake snake) {
+    return (snake.id() + 1) << 1;
+  }
+
+  // Celda y*width+x de una posición empaquetada por Snake
+  private int cell(int packed) {
+    return Snake.y(packed) * width + Snake.x(packed);
+  }
+
+  // Toma el lock contando las veces que hubo que esperar y el tiempo de espera
+  private void lockCounted() {
+    if (modificationLock.tryLock()) return;
+    long start = System.nanoTime();
+    modificationLock.lock();
+    lockWaits.increment();
+    lockWaitNanos.add(System.nanoTime() - start);
+  }
+
+  // Celda a la que entra la cabeza con esa dirección, después del teleport (los teleports no cambian)
+  private int destination(int head, Direction dir) {
+    int next = Math.floorMod(Snake.y(head) + dir.dy, height) * width + Math.floorMod(Snake.x(head) + dir.dx, width);
+    return (byte) CELL.getAcquire(cells, next) == TELEPORT ? teleportTo[next] : next;
+  }
+
+  // Stripes de las celdas, ordenados y sin repetir: se toman siempre en ese orden, así no hay interbloqueos
+  private static int[] stripesOf(int... cells) {
+    int[] out = new int[cells.length];
+    for (int i = 0; i < cells.length; i++) out[i] = cells[i] & (STRIPES - 1);
+    Arrays.sort(out);
+    int n = 0;
+    for (int i = 0; i < out.length; i++) {
+      if (n == 0 || out[n - 1] != out[i]) out[n++] = out[i];
+    }
+    return n == out.length ? out : Arrays.copyOf(out, n);
+  }
+
+  private void lockStripes(int[] held) {
+    for (int i : held) stripes[i].lock();
+  }
+
+  private void unlockStripes(int[] held) {
+    for (int k = held.length - 1; k >= 0; k--) stripes[held[k]].unlock();
+  }
+
+  // Lo mismo para las tres celdas de un paso, sin arreglos: devuelve los stripes tomados empaquetados de a 10 bits
+  private int lockStripes(int x, int y, int z) {
+    int a = x & (STRIPES - 1), b = y & (STRIPES - 1), c = z & (STRIPES - 1), t;
+    if (a > b) { t = a; a = b; b = t; }
+    if (b > c) { t = b; b = c; c = t; }
+    if (a > b) { t = a; a = b; b = t; }
+    stripes[a].lock();
+    if (b != a) stripes[b].lock();
+    if (c != b) stripes[c].lock();
+    return a | b << 10 | c << 20;
+  }
+
+  private void unlockStripes(int held) {
+    int a = held & (STRIPES - 1), b = held >>> 10 & (STRIPES - 1), c = held >>> 20;
+    if (c != b) stripes[c].unlock();
+    if (b != a) stripes[b].unlock();
+    stripes[a].unlock();
+  }
+
   private void createTeleportPairs(int pairs) {
     for (int i=0;i<pairs;i++) {
-      Position a = randomEmpty();
-      Position b = randomEmpty();
-      teleports.put(a, b);
-      teleports.put(b, a);
+      int a = spawn(TELEPORT);
+      int b = spawn(TELEPORT);
+      if (a < 0 || b < 0) {
+        if (a >= 0) setKind(a, EMPTY);
+        return;
+      }
+      teleportTo[a] = b;
+      teleportTo[b] = a;
+    }
+  }
+
+  // Pone un elemento en una celda libre al azar (O(1)); devuelve la celda o -1 si el tablero está lleno
+  private int spawn(byte kind) {
+    if (count[EMPTY] == 0) return -1;
+    MoveJournal recording = journal;
+    if (recording == null) {
+      int cell = members[EMPTY][random().nextInt(count[EMPTY])];
+      setKind(cell, kind);
+      return cell;
+    }
+    // Grabando: solo en una celda cuyo stripe esté libre (o sea nuestro), para no cambiarla a mitad del paso de otra
+    // serpiente. Sin esperar: se tiene el lock del tablero y quien tiene el stripe puede estar esperándolo
+    for (int i = 0; i < SPAWN_PROBES; i++) {
+      int cell = members[EMPTY][random().nextInt(count[EMPTY])];
+      ReentrantLock stripe = stripes[cell & (STRIPES - 1)];
+      if (!stripe.tryLock()) continue;
+      try {
+        setKind(cell, kind);
+        recording.spawn(kind, cell);
+        return cell;
+      } finally {
+        stripe.unlock();
+      }
+    }
+    return -1;
+  }
+
+  // Aparición sin lock: primero celdas al azar y, si el tablero está casi lleno, las palabras de occupied con algún
+  // bit libre (según full) desde una zona al azar. Devuelve la celda o -1 si no quedó ninguna libre
+  private int spawnLockFree(byte kind) {
+    var rnd = random();
+    for (int i = 0; i < SPAWN_PROBES; i++) {
+      int cell = rnd.nextInt(cells.length);
+      if ((byte) CELL.getAcquire(cells, cell) != EMPTY) continue;
+      if (placeLockFree(cell, kind)) return cell;
+      casFailures.increment();
+    }
+    int start = rnd.nextInt(full.length);
+    for (int k = 0; k < full.length; k++) {
+      int f = (start + k) % full.length;
+      for (long words = ~(long) BITS.getAcquire(full, f); words != 0; words &= words - 1) {
+        int w = f << 6 | Long.numberOfTrailingZeros(words);
+        for (long free = ~(long) BITS.getAcquire(occupied, w); free != 0; free &= free - 1) {
+          int cell = w << 6 | Long.numberOfTrailingZeros(free);
+          if (placeLockFree(cell, kind)) return cell;
+          casFailures.increment();
+        }
+      }
+    }
+    return -1;
+  }
+
+  // Grabando, igual que spawn: solo si el stripe de la celda está libre, y el SPAWN toma su seq al escribirla
+  private boolean placeLockFree(int cell, byte kind) {
+    MoveJournal recording = journal;
+    if (recording == null) return insertLockFree(cell, kind);
+    ReentrantLock stripe = stripes[cell & (STRIPES - 1)];
+    if (!stripe.tryLock()) return false;
+    try {
+      if (!insertLockFree(cell, kind)) return false;
+      recording.spawn(kind, cell);
+      return true;
+    } finally {
+      stripe.unlock();
     }
   }
 
-  private Position randomEmpty() {
+  // EMPTY -> BUSY, slot en la tabla de items, BUSY -> kind. Falla si la celda ya no estaba vacía
+  private boolean insertLockFree(int cell, byte kind) {
+    if (!CELL.compareAndSet(cells, cell, EMPTY, BUSY)) return false;
+    markOccupied(cell);
+    slot[cell] = claimSlot(cell);
+    CELL.setRelease(cells, cell, kind);
+    itemVersion.incrementAndGet();
+    return true;
+  }
+
+  // kind -> BUSY, libera el slot, BUSY -> EMPTY. Falla si otro hilo se lo llevó primero
+  private boolean consumeLockFree(int cell, byte kind) {
+    if (!CELL.compareAndSet(cells, cell, kind, BUSY)) return false;
+    int s = slot[cell];
+    SLOT.setRelease(itemAt, s, 0);
+    lastFreed = s;
+    markFree(cell);
+    CELL.setRelease(cells, cell, EMPTY);
+    itemVersion.incrementAndGet();
+    return true;
+  }
+
+  // Un slot libre de la tabla de items: el último liberado, unos al azar entre los ya usados o uno nuevo al final.
+  // Hay un item a lo sumo por celda, así que la tabla (del tamaño de la grilla) nunca se llena
+  private int claimSlot(int cell) {
+    int freed = lastFreed;
+    if (freed >= 0 && SLOT.compareAndSet(itemAt, freed, 0, cell + 1)) return freed;
     var rnd = ThreadLocalRandom.current();
-    Position p;
-    int guard = 0;
-    do {
-      p = new Position(rnd.nextInt(width), rnd.nextInt(height));
-      guard++;
-      if (guard > width*height*2) break;
-    } while (mice.contains(p) || obstacles.contains(p) || turbo.contains(p) || teleports.containsKey(p));
-    return p;
+    for (int i = 0; i < SLOT_PROBES; i++) {
+      int high = itemHigh.get();
+      if (high == 0) break;
+      int s = rnd.nextInt(high);
+      if ((int) SLOT.getAcquire(itemAt, s) == 0 && SLOT.compareAndSet(itemAt, s, 0, cell + 1)) return s;
+    }
+    while (true) {
+      int s = itemHigh.get();
+      if (s == itemAt.length) break;
+      if (itemHigh.compareAndSet(s, s + 1) && SLOT.compareAndSet(itemAt, s, 0, cell + 1)) return s;
+    }
+    for (int s = 0; ; s = (s + 1) % itemAt.length) {
+      if (SLOT.compareAndSet(itemAt, s, 0, cell + 1)) return s;
+    }
+  }
+
+  // Bits de occupied y full. Solo el hilo que tiene la celda en BUSY cambia su bit; full es una pista: se marca
+  // cuando una palabra se ve llena (y se desmarca si al volver a mirarla ya no lo está) y se borra al liberar
+  private void markOccupied(int cell) {
+    int w = cell >>> 6;
+    long bit = 1L << (cell & 63);
+    if (((long) BITS.getAndBitwiseOr(occupied, w, bit) | bit) != -1L) return;
+    long summary = 1L << (w & 63);
+    BITS.getAndBitwiseOr(full, w >>> 6, summary);
+    if ((long) BITS.getVolatile(occupied, w) != -1L) BITS.getAndBitwiseAnd(full, w >>> 6, ~summary);
+  }
+
+  private void markFree(int cell) {
+    int w = cell >>> 6;
+    if ((long) BITS.getAndBitwiseAnd(occupied, w, ~(1L << (cell & 63))) == -1L) {
+      BITS.getAndBitwiseAnd(full, w >>> 6, ~(1L << (w & 63)));
+    }
+  }
+
+  // Mueve la celda del arreglo de su tipo actual al del nuevo tipo (intercambio con el último: O(1))
+  private void setKind(int cell, byte kind) {
+    byte old = cells[cell];
+    int[] from = members[old];
+    int last = from[--count[old]];
+    from[slot[cell]] = last;
+    slot[last] = slot[cell];
+
+    if (count[kind] == members[kind].length) members[kind] = Arrays.copyOf(members[kind], 2 * count[kind]);
+    members[kind][count[kind]] = cell;
+    slot[cell] = count[kind]++;
+    CELL.setRelease(cells, cell, kind);
+    itemVersion.incrementAndGet();
+  }
+
+  // Todos los items de una vez, para publicar un cuadro por tick; sin cambios no se copia nada
+  public Items items() {
+    long version = itemVersion.get();
+    Items cached = items;
+    if (cached != null && cached.version() == version) return cached;
+
+    int[] tp;
+    int[] mouse, obstacle, bolt;
+    modificationLock.lock();
+    try {
+      tp = new int[2 * count[TELEPORT]];
+      for (int i = 0; i < count[TELEPORT]; i++) {
+        tp[2 * i] = members[TELEPORT][i];
+        tp[2 * i + 1] = teleportTo[members[TELEPORT][i]];
+      }
+      if (mode == Mode.LOCKED) {
+        mouse = Arrays.copyOf(members[MOUSE], count[MOUSE]);
+        obstacle = Arrays.copyOf(members[OBSTACLE], count[OBSTACLE]);
+        bolt = Arrays.copyOf(members[TURBO], count[TURBO]);
+      } else {
+        mouse = scan(MOUSE);
+        obstacle = scan(OBSTACLE);
+        bolt = scan(TURBO);
+      }
+    } finally {
+      modificationLock.unlock();
+    }
+    // La versión se leyó antes de copiar: si algo cambió mientras tanto, la próxima llamada vuelve a copiar
+    Items fresh = new Items(version, mouse, obstacle, bolt, tp);
+    items = fresh;
+    return fresh;
+  }
+
+  // Items de un tipo en modo LOCK_FREE: recorre la tabla de slots, no la grilla
+  private int[] scan(byte kind) {
+    int n = 0;
+    int[] out = new int[8];
+    int high = itemHigh.get();
+    for (int s = 0; s < high; s++) {
+      int cell = (int) SLOT.getAcquire(itemAt, s) - 1;
+      if (cell < 0 || (byte) CELL.getAcquire(cells, cell) != kind) continue;
+      if (n == out.length) out = Arrays.copyOf(out, 2 * n);
+      out[n++] = cell;
+    }
+    return Arrays.copyOf(out, n);
+  }
+
+  private Set<Position> positions(byte kind) {
+    if (mode == Mode.LOCK_FREE) {
+      Set<Position> out = new HashSet<>();
+      for (int cell : scan(kind)) out.add(position(cell));
+      return out;
+    }
+    modificationLock.lock();
+    try {
+      Set<Position> out = new HashSet<>();
+      for (int i = 0; i < count[kind]; i++) out.add(position(members[kind][i]));
+      return out;
+    } finally {
+      modificationLock.unlock();
+    }
+  }
+
+  private Random random() {
+    return random != null ? random : ThreadLocalRandom.current();
+  }
+
+  private Position position(int cell) {
+    return new Position(cell % width, cell / width);
   }
 }
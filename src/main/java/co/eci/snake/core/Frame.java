@@ -0,0 +1,16 @@
+package co.eci.snake.core;
+
+import java.util.List;
+
+// Cuadro inmutable del juego publicado una vez por tick. Las celdas van empaquetadas como y*width+x.
+// Cuadros consecutivos comparten los arreglos que no cambiaron (items sin cambios, serpientes quietas o muertas),
+// así que publicar uno cuesta solo lo que se movió. Los lectores no deben modificar los arreglos.
+// tiles agrupa lo anterior por zonas del tablero para dibujar solo la parte visible.
+public record Frame(long epoch, int width, int height, Board.Items items, List<Body> snakes, TileIndex tiles) {
+
+  // Cuerpo de una serpiente desde la cabeza
+  public record Body(int id, boolean alive, int[] cells) {}
+
+  public int x(int cell) { return cell % width; }
+  public int y(int cell) { return cell / width; }
+}
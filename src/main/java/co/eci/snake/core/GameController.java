@@ -3,6 +3,7 @@ package co.eci.snake.core;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
+import co.eci.snake.concurrency.PauseBarrier;
 import co.eci.snake.core.engine.GameClock;
 
 
@@ -10,52 +11,51 @@ public class GameController {
     private final List<Snake> snakes;
     private final GameClock clock;
     private final AtomicReference<GameState> state;
+    private final PauseBarrier barrier = new PauseBarrier();
     
-    // Estadísticas calculadas
-    private volatile SnakeStats longestSnake;
-    private volatile SnakeStats worstSnake;
+    // Estadísticas en vivo, actualizadas por los eventos de cada serpiente
+    private final Leaderboard leaderboard = new Leaderboard();
     
     public GameController(List<Snake> snakes, GameClock clock) {
         this.snakes = snakes;
         this.clock = clock;
         this.state = new AtomicReference<>(GameState.RUNNING);
+        snakes.forEach(leaderboard::track);
     }
     
     // PASO 1: Iniciar pausa coordinada
     public void pause() {
         state.set(GameState.PAUSED);
         clock.pause();
-        // Esperar a que todos los SnakeRunners lleguen a la barrera
-        // PASO 2: Calcular estadísticas con estado consistente
-        calculateStats();
+        // Esperar a que todos los SnakeRunners lleguen a la barrera; las estadísticas ya están al día
+        barrier.pause();
     }
     
     public void resume() {
         state.set(GameState.RUNNING);
-        clock.resume();
         // Liberar a todos los SnakeRunners esperando
+        barrier.resume();
+        clock.resume();
     }
     
-    private void calculateStats() {
-        // Recolectar estadísticas de todas las serpientes
-        List<SnakeStats> allStats = snakes.stream()
-            .map(Snake::getStats)  // Thread-safe porque es synchronized
-            .toList();
-        
-        // Encontrar la más larga (viva)
-        longestSnake = allStats.stream()
-            .filter(SnakeStats::isAlive)
-            .max(Comparator.comparingInt(SnakeStats::length))
-            .orElse(null);
-        
-        // Encontrar la peor (primera en morir)
-        worstSnake = allStats.stream()
-            .filter(s -> !s.isAlive())
-            .min(Comparator.comparingLong(s -> s.deathTime()))
-            .orElse(null);
+    // Barrera en la que se registran los SnakeRunner
+    public PauseBarrier pauseBarrier() { return barrier; }
+
+    // Tiempo (ns) que tomó la última pausa en dejar a todos los runners detenidos
+    public long getLastPauseNanos() { return barrier.getLastPauseNanos(); }
+
+    // Tiempo (ns) hasta que el último runner volvió a correr tras reanudar
+    public long getLastResumeNanos() { return barrier.getLastResumeNanos(); }
+
+    // La serpiente viva más larga (O(1), sin detener el juego)
+    public SnakeStats getLongestSnake() {
+        List<SnakeStats> top = leaderboard.top(1);
+        return top.isEmpty() ? null : top.get(0);
     }
-    
-    public SnakeStats getLongestSnake() { return longestSnake; }
-    public SnakeStats getWorstSnake() { return worstSnake; }
+
+    // La primera serpiente en morir
+    public SnakeStats getWorstSnake() { return leaderboard.firstDeath(); }
+
+    public Leaderboard getLeaderboard() { return leaderboard; }
     public GameState getState() { return state.get(); }
 }
\ No newline at end of file
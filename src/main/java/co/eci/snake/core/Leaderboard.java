@@ -0,0 +1,107 @@
+package co.eci.snake.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Tabla de posiciones mantenida con los eventos de las serpientes, sin detener el juego.
+// Las serpientes vivas están ordenadas por largo en un ConcurrentSkipListSet: un cambio de largo es O(log n)
+// y el top-K se lee en O(K). La primera muerte y los totales se actualizan con operaciones atómicas.
+// Los eventos de una misma serpiente pueden llegar a la vez y desordenados: cada cambio en el ranking se hace dentro
+// de current.compute (atómico por serpiente), el largo nunca baja y una serpiente muerta queda marcada con DEAD
+// para que un onLength atrasado no la vuelva a meter.
+public final class Leaderboard implements SnakeListener {
+  // Posición de una serpiente viva: mayor largo primero, y a igual largo el id menor
+  private record Rank(int length, int id, Snake snake) {}
+
+  private record Death(long time, int id, Snake snake) {}
+
+  // Largo de la marca que deja onDeath en current
+  private static final int DEAD = -1;
+
+  private static final Comparator<Rank> ORDER =
+      Comparator.comparingInt(Rank::length).reversed().thenComparingInt(Rank::id);
+
+  private final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>(ORDER);
+  private final Map<Integer, Rank> current = new ConcurrentHashMap<>();
+  private final AtomicReference<Death> firstDeath = new AtomicReference<>();
+
+  private final AtomicInteger alive = new AtomicInteger();
+  private final AtomicInteger dead = new AtomicInteger();
+  private final LongAdder miceEaten = new LongAdder();
+
+  // Empieza a seguir a una serpiente (antes de que se mueva)
+  public void track(Snake snake) {
+    var stats = snake.getStats();
+    if (stats.isAlive()) {
+      alive.incrementAndGet();
+      onLength(snake, stats.length());
+    } else {
+      dead.incrementAndGet();
+    }
+    snake.setListener(this);
+  }
+
+  @Override
+  public void onLength(Snake snake, int length) {
+    current.compute(snake.id(), (id, old) -> {
+      // La misma serpiente ya murió o ya informó un largo mayor: el evento llegó tarde
+      if (old != null && old.snake() == snake && (old.length() == DEAD || old.length() >= length)) return old;
+      if (old != null) ranking.remove(old);
+      Rank rank = new Rank(length, id, snake);
+      ranking.add(rank);
+      return rank;
+    });
+  }
+
+  @Override
+  public void onMouseEaten(Snake snake, int miceEaten) {
+    this.miceEaten.increment();
+  }
+
+  @Override
+  public void onDeath(Snake snake, long deathTime) {
+    boolean[] first = {true};
+    current.compute(snake.id(), (id, old) -> {
+      if (old != null && old.snake() == snake && old.length() == DEAD) {
+        first[0] = false;
+        return old;
+      }
+      if (old != null) ranking.remove(old);
+      return new Rank(DEAD, id, snake);
+    });
+    if (!first[0]) return;
+    alive.decrementAndGet();
+    dead.incrementAndGet();
+    Death death = new Death(deathTime, snake.id(), snake);
+    firstDeath.accumulateAndGet(death, (a, b) ->
+        a == null || b.time() < a.time() || (b.time() == a.time() && b.id() < a.id()) ? b : a);
+  }
+
+  // Las k serpientes vivas más largas, de mayor a menor (O(k))
+  public List<SnakeStats> top(int k) {
+    List<SnakeStats> out = new ArrayList<>(k);
+    for (Rank r : ranking) {
+      if (out.size() == k) break;
+      out.add(r.snake().getStats());
+    }
+    return out;
+  }
+
+  // La primera serpiente en morir, o null si todas siguen vivas
+  public SnakeStats firstDeath() {
+    Death d = firstDeath.get();
+    return d == null ? null : d.snake().getStats();
+  }
+
+  public int alive() { return alive.get(); }
+  public int dead() { return dead.get(); }
+  public long miceEaten() { return miceEaten.sum(); }
+}
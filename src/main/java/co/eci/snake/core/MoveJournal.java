@@ -0,0 +1,226 @@
+package co.eci.snake.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Journal binario de una partida: cada paso (dirección, MoveResult y cabeza), cada item que aparece, cada serpiente
+// que entra, sale o muere fuera de step. Cada registro toma un número de secuencia global y se escribe directo en su
+// lugar del archivo mapeado (HEADER + seq * RECORD), sin buffers ni locks propios: el archivo queda ordenado por seq y
+// la reproducción lo recorre de corrido. Un paso reserva su seq en el punto en que se decide (Board.step) y escribe
+// el registro al terminar, en ese mismo lugar. Los segmentos del mapeo se crean a medida que crece.
+//
+// Grabar no es gratis para los corredores: para que el orden de los seq sea el orden real, Board.step toma los locks
+// por franjas (stripes) de la cabeza, el destino y la cola, así que los pasos que comparten franjas se serializan, y
+// closeJournal toma todas las franjas y el lock del tablero. La grabación cambia el perfil de contención (en LoadTest,
+// 2000 serpientes en 200x200, los pasos por segundo bajan a la mitad): sirve para reproducir una partida, no para
+// medir la contención que tendría sin grabar.
+//
+// Cabecera (64 bytes, little-endian): "SNJ1", width, height, seed, cantidad de registros (al cerrar).
+// Registro (16 bytes): long tipo<<56 | info<<48 | seq, int id, int data.
+//   MOVE   info = resultado<<2 | dirección, id = serpiente, data = celda de la cabeza después del paso
+//   SPAWN  info = tipo de item (Board.kindAt),               data = celda
+//   SNAKE  id = serpiente, data = celda inicial (Board.addSnake)
+//   REMOVE id = serpiente
+//   DEATH  id = serpiente (muertes decididas fuera de step, Board.markDead)
+//   END    id, data = mitades alta y baja de Board.checksum() al cerrar
+//   TICK   data = cantidad de MOVE que siguen y forman un movimiento simultáneo (Board.stepAll); los SPAWN de ese
+//          movimiento van después
+// Los SPAWN van después del paso que los generó: la reproducción no vuelve a sortear los items, los pone donde dice
+// el journal (con pasos en paralelo el orden de los sorteos no es el de los seq)
+public final class MoveJournal {
+  public static final int MAGIC = 0x314A4E53; // "SNJ1"
+  public static final int HEADER = 64;
+  public static final int RECORD = 16;
+  public static final int HOLE = 0, MOVE = 1, SPAWN = 2, SNAKE = 3, REMOVE = 4, DEATH = 5, END = 6, TICK = 7;
+
+  private static final int SEGMENT_RECORDS = 1 << 22; // 64 MB por segmento
+  private static final long SEQ_MASK = (1L << 48) - 1;
+
+  private final FileChannel channel;
+  private final AtomicLong seq = new AtomicLong();
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  private final int width;
+  private final int height;
+  private final long seed;
+  private volatile boolean closed = false;
+
+  private MoveJournal(FileChannel channel, int width, int height, long seed) {
+    this.channel = channel;
+    this.width = width;
+    this.height = height;
+    this.seed = seed;
+  }
+
+  public static MoveJournal create(Path path, int width, int height, long seed) {
+    try {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      MoveJournal journal = new MoveJournal(channel, width, height, seed);
+      journal.writeHeader(0);
+      return journal;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public int width() { return width; }
+  public int height() { return height; }
+  public long seed() { return seed; }
+
+  // Registros escritos hasta ahora
+  public long size() { return seq.get(); }
+
+  // Seq para un registro que se escribe después con move/tick; reserve(n) reserva n seguidos y devuelve el primero
+  long reserve() { return seq.getAndIncrement(); }
+  long reserve(int n) { return seq.getAndAdd(n); }
+
+  void move(long at, Snake snake, Direction dir, Board.MoveResult result, int head) {
+    write(at, MOVE, result.ordinal() << 2 | dir.ordinal(), snake.id(), head);
+  }
+
+  void tick(long at, int moves) { write(at, TICK, 0, 0, moves); }
+
+  void spawn(int kind, int cell) { put(SPAWN, kind, 0, cell); }
+  void snake(Snake snake, int cell) { put(SNAKE, 0, snake.id(), cell); }
+  void remove(Snake snake) { put(REMOVE, 0, snake.id(), 0); }
+  void death(Snake snake) { put(DEATH, 0, snake.id(), 0); }
+
+  private void put(int type, int info, int id, int data) {
+    write(seq.getAndIncrement(), type, info, id, data);
+  }
+
+  private void write(long s, int type, int info, int id, int data) {
+    if (closed) return;
+    MappedByteBuffer segment = segment((int) (s / SEGMENT_RECORDS));
+    int at = (int) (s % SEGMENT_RECORDS) * RECORD;
+    segment.putInt(at + 8, id);
+    segment.putInt(at + 12, data);
+    segment.putLong(at, (long) type << 56 | (long) info << 48 | s);
+  }
+
+  private MappedByteBuffer segment(int i) {
+    MappedByteBuffer[] current = segments;
+    if (i < current.length && current[i] != null) return current[i];
+    return map(i);
+  }
+
+  // Solo se entra aquí al pasar a un segmento nuevo
+  private synchronized MappedByteBuffer map(int i) {
+    if (i >= segments.length) segments = Arrays.copyOf(segments, Math.max(i + 1, 2 * segments.length));
+    if (segments[i] == null) {
+      try {
+        long offset = HEADER + (long) i * SEGMENT_RECORDS * RECORD;
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) SEGMENT_RECORDS * RECORD);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        MappedByteBuffer[] copy = segments.clone();
+        copy[i] = segment;
+        segments = copy;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return segments[i];
+  }
+
+  private void writeHeader(long records) throws IOException {
+    var header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC).putInt(width).putInt(height).putLong(seed).putLong(records);
+    header.flip();
+    channel.write(header, 0);
+  }
+
+  // Escribe el END con el checksum del tablero y recorta el archivo; lo llama Board.closeJournal sin pasos en curso
+  void close(long checksum) {
+    if (closed) return;
+    put(END, 0, (int) (checksum >>> 32), (int) checksum);
+    closed = true;
+    try {
+      long records = seq.get();
+      for (MappedByteBuffer segment : segments) {
+        if (segment != null) segment.force();
+      }
+      writeHeader(records);
+      channel.truncate(HEADER + records * RECORD);
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Lectura de un journal cerrado, registro por registro en orden de seq
+  public static final class Reader implements AutoCloseable {
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final long records;
+
+    // Un seq reservado que nunca se escribió (la JVM terminó entre reservarlo y escribirlo) queda como HOLE
+    public Reader(Path path) {
+      try {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        var header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IllegalArgumentException("Not a move journal: " + path);
+        this.width = header.getInt();
+        this.height = header.getInt();
+        this.seed = header.getLong();
+        // Un journal sin cerrar no tiene la cantidad en la cabecera y el archivo llega hasta el final del último
+        // segmento mapeado: se lee hasta el último registro escrito (los huecos anteriores quedan como HOLE)
+        long count = header.getLong();
+        long available = (channel.size() - HEADER) / RECORD;
+        int n = (int) ((available + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS);
+        this.segments = new MappedByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+          long first = (long) i * SEGMENT_RECORDS;
+          long length = Math.min(SEGMENT_RECORDS, available - first) * RECORD;
+          segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + first * RECORD, length);
+          segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (count > 0) {
+          this.records = count;
+        } else {
+          long last = available;
+          while (last > 0 && type(last - 1) == HOLE) last--;
+          this.records = last;
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    public int width() { return width; }
+    public int height() { return height; }
+    public long seed() { return seed; }
+    public long records() { return records; }
+
+    public int type(long i) { return (int) (word(i) >>> 56); }
+    public int info(long i) { return (int) (word(i) >>> 48) & 0xFF; }
+    public long seq(long i) { return word(i) & SEQ_MASK; }
+    public int id(long i) { return segments[(int) (i / SEGMENT_RECORDS)].getInt((int) (i % SEGMENT_RECORDS) * RECORD + 8); }
+    public int data(long i) { return segments[(int) (i / SEGMENT_RECORDS)].getInt((int) (i % SEGMENT_RECORDS) * RECORD + 12); }
+
+    private long word(long i) {
+      return segments[(int) (i / SEGMENT_RECORDS)].getLong((int) (i % SEGMENT_RECORDS) * RECORD);
+    }
+
+    @Override
+    public void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -2,29 +2,58 @@ package co.eci.snake.core;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.locks.StampedLock;
 
+// El cuerpo es un buffer circular de ints empaquetados x<<16|y (cabeza en head, hacia atrás hasta la cola):
+// avanzar, leer la cabeza o la cola y recorrer el cuerpo no crean objetos. Position solo aparece en la API.
+// Las escrituras toman el lock de escritura; las lecturas son optimistas (sin bloquear) y solo si hubo una
+// escritura en medio se repiten con el lock de lectura
 public final class Snake {
-  private final Deque<Position> body = new ArrayDeque<>();
+  public static final int NONE = -1;       // Sin celda (p. ej. advance no soltó la cola)
+  private static final int MAX_COORD = 0xFFFF;
+
+  private final StampedLock lock = new StampedLock();
+  private int[] ring = new int[8];          // Largo potencia de dos
+  private int head = 0;                    // Índice de la cabeza en ring
+  private int size = 0;
   private volatile Direction direction;
   private int maxLength = 5;
   private final int id;
   private final long startTime;
-  private Long deathTime = null;
-  private int miceEaten = 0;
+  private volatile Long deathTime = null;
+  private volatile int miceEaten = 0;
+  private volatile SnakeListener listener = new SnakeListener() {};
+  // Movimientos hechos y el último cuerpo empaquetado (se reutiliza mientras la serpiente no se mueva)
+  private long moves = 0;
+  private volatile Packed packed = null;
+
+  private record Packed(long at, int width, int[] cells) {}
 
-  private Snake(int id, Position start, Direction dir) {
+  private Snake(int id, int x, int y, Direction dir) {
+    if (x < 0 || y < 0 || x > MAX_COORD || y > MAX_COORD) throw new IllegalArgumentException("Position out of range");
     this.id = id;
     this.startTime = System.currentTimeMillis();
-    body.addFirst(start);
+    ring[0] = pack(x, y);
+    size = 1;
     this.direction = dir;
   }
 
   public static Snake of(int id, int x, int y, Direction dir) {
-        return new Snake(id, new Position(x, y), dir);
+        return new Snake(id, x, y, dir);
   }
 
+  public static int pack(int x, int y) { return x << 16 | y; }
+  public static int x(int packed) { return packed >>> 16; }
+  public static int y(int packed) { return packed & MAX_COORD; }
+
+  public int id() { return id; }
+
+  // Recibe los cambios de largo, ratones comidos y la muerte en cuanto ocurren
+  public void setListener(SnakeListener listener) { this.listener = listener; }
+
   public Direction direction() { return direction; }
 
+  // La dirección tiene su propio monitor: girar no invalida las lecturas optimistas del cuerpo
   public synchronized void turn(Direction dir) {
     if ((direction == Direction.UP && dir == Direction.DOWN) ||
         (direction == Direction.DOWN && dir == Direction.UP) ||
@@ -35,37 +64,221 @@ public final class Snake {
     this.direction = dir;
   }
 
-  public synchronized Position head() { return body.peekFirst(); }
+  // Cabeza empaquetada x<<16|y
+  public int headCell() {
+    long stamp = lock.tryOptimisticRead();
+    int[] r = ring;
+    int cell = r[head & (r.length - 1)];
+    if (lock.validate(stamp)) return cell;
+    stamp = lock.readLock();
+    try {
+      return ring[head];
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Cola empaquetada x<<16|y
+  public int tailCell() {
+    long stamp = lock.tryOptimisticRead();
+    int[] r = ring;
+    int cell = r[(head - size + 1) & (r.length - 1)];
+    if (lock.validate(stamp)) return cell;
+    stamp = lock.readLock();
+    try {
+      return ring[(head - size + 1) & (ring.length - 1)];
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Largo al que tiende el cuerpo: mientras length() < maxLength() avanzar no suelta la cola
+  public int maxLength() {
+    long stamp = lock.tryOptimisticRead();
+    int n = maxLength;
+    if (lock.validate(stamp)) return n;
+    stamp = lock.readLock();
+    try {
+      return maxLength;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int length() {
+    long stamp = lock.tryOptimisticRead();
+    int n = size;
+    if (lock.validate(stamp)) return n;
+    stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
 
-  public synchronized Deque<Position> snapshot() { return new ArrayDeque<>(body); }
+  // Copia el cuerpo (desde la cabeza, empaquetado) en out sin asignar nada; devuelve el largo, que puede
+  // ser mayor que out.length: en ese caso solo se copiaron las primeras out.length celdas
+  public int copyBody(int[] out) {
+    long stamp = lock.tryOptimisticRead();
+    int n = copy(out);
+    if (lock.validate(stamp)) return n;
+    stamp = lock.readLock();
+    try {
+      return copy(out);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private int copy(int[] out) {
+    int[] r = ring;
+    int mask = r.length - 1;
+    int h = head, n = size;
+    int m = Math.min(Math.min(n, out.length), r.length);
+    for (int i = 0; i < m; i++) out[i] = r[(h - i) & mask];
+    return n;
+  }
+
+  public Position head() {
+    int cell = headCell();
+    return new Position(x(cell), y(cell));
+  }
 
-  public synchronized void advance(Position newHead, boolean grow) {
-    body.addFirst(newHead);
-    if (grow) maxLength++;
-    while (body.size() > maxLength) body.removeLast();
+  public Position tail() {
+    int cell = tailCell();
+    return new Position(x(cell), y(cell));
+  }
+
+  public Deque<Position> snapshot() {
+    int[] body = packedBody();
+    Deque<Position> out = new ArrayDeque<>(body.length);
+    for (int cell : body) out.addLast(new Position(x(cell), y(cell)));
+    return out;
+  }
+
+  // Cuerpo como celdas y*width+x desde la cabeza; el mismo arreglo mientras la serpiente no se mueva (no modificar)
+  public int[] cells(int width) {
+    Packed p = packed;
+    long stamp = lock.tryOptimisticRead();
+    long at = moves;
+    if (p != null && p.at() == at && p.width() == width && lock.validate(stamp)) return p.cells();
+
+    int[] body;
+    stamp = lock.readLock();
+    try {
+      at = moves;
+      body = new int[size];
+      copy(body);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    for (int i = 0; i < body.length; i++) body[i] = y(body[i]) * width + x(body[i]);
+    packed = new Packed(at, width, body);
+    return body;
+  }
+
+  // Cuerpo empaquetado consistente (un arreglo nuevo)
+  private int[] packedBody() {
+    long stamp = lock.tryOptimisticRead();
+    int[] out = new int[size];
+    int n = copy(out);
+    if (lock.validate(stamp) && n == out.length) return out;
+    stamp = lock.readLock();
+    try {
+      out = new int[size];
+      copy(out);
+      return out;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Devuelve la cola que se soltó (null si la serpiente creció)
+  public Position advance(Position newHead, boolean grow) {
+    int removed = advance(newHead.x(), newHead.y(), grow);
+    return removed == NONE ? null : new Position(x(removed), y(removed));
+  }
+
+  // Versión sin objetos: devuelve la cola soltada empaquetada, o NONE si la serpiente creció
+  public int advance(int x, int y, boolean grow) {
+    int removed = NONE;
+    int length;
+    long stamp = lock.writeLock();
+    try {
+      if (size == ring.length) grow();
+      head = (head + 1) & (ring.length - 1);
+      ring[head] = pack(x, y);
+      size++;
+      moves++;
+      if (grow) maxLength++;
+      while (size > maxLength) {
+        removed = ring[(head - size + 1) & (ring.length - 1)];
+        size--;
+      }
+      length = size;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    // Los eventos se emiten fuera del lock: el oyente puede volver a leer la serpiente
+    if (removed == NONE && deathTime == null) listener.onLength(this, length);
+    return removed;
+  }
+
+  // Duplica el buffer dejando el cuerpo contiguo desde el índice 0 (amortizado O(1) por avance)
+  private void grow() {
+    int[] bigger = new int[ring.length * 2];
+    int mask = ring.length - 1;
+    for (int i = 0; i < size; i++) bigger[size - 1 - i] = ring[(head - i) & mask];
+    ring = bigger;
+    head = size - 1;
   }
 
   // Método para registrar evento
-  public synchronized void recordMouseEaten() {
-        miceEaten++;
+  public void recordMouseEaten() {
+    int eaten;
+    long stamp = lock.writeLock();
+    try {
+      eaten = ++miceEaten;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    listener.onMouseEaten(this, eaten);
   }
 
-  public synchronized void markDead() {
-        if (deathTime == null) {
-            deathTime = System.currentTimeMillis();
-        }
+  public void markDead() {
+    long time;
+    long stamp = lock.writeLock();
+    try {
+      if (deathTime != null) return;
+      time = System.currentTimeMillis();
+      deathTime = time;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    listener.onDeath(this, time);
+  }
+
+  public boolean isDead() {
+        return deathTime != null;
   }
 
   //Crear snapshot thread-safe
-  public synchronized SnakeStats getStats() {
-        return new SnakeStats(
-            id,
-            body.size(),
-            startTime,
-            deathTime,
-            miceEaten,
-            head()
-        );
+  public SnakeStats getStats() {
+    long stamp = lock.readLock();
+    try {
+      int cell = ring[head];
+      return new SnakeStats(
+          id,
+          size,
+          startTime,
+          deathTime,
+          miceEaten,
+          new Position(x(cell), y(cell))
+      );
+    } finally {
+      lock.unlockRead(stamp);
     }
+  }
 
 }
@@ -0,0 +1,10 @@
+package co.eci.snake.core;
+
+// Eventos que publica una serpiente en el momento en que ocurren. Se llaman después de soltar el lock de la
+// serpiente (el oyente puede volver a leerla), así que los de una misma serpiente pueden llegar a la vez desde
+// distintos hilos y en otro orden: un onLength puede llegar después de uno con un largo mayor o después de onDeath
+public interface SnakeListener {
+  default void onLength(Snake snake, int length) {}
+  default void onMouseEaten(Snake snake, int miceEaten) {}
+  default void onDeath(Snake snake, long deathTime) {}
+}
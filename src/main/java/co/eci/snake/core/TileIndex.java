@@ -0,0 +1,97 @@
+package co.eci.snake.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Índice espacial de un Frame: el tablero se parte en baldosas de SIZE×SIZE celdas y cada baldosa guarda, en un
+// tramo contiguo de cells/tags, los items y segmentos de serpiente que caen en ella (orden de dibujo: obstáculos,
+// ratones, teleports, turbo, serpientes desde la cabeza). Quien dibuja solo recorre las baldosas visibles, así que
+// el costo depende de la ventana y no del tamaño del tablero. Se arma con dos pasadas (conteo y llenado), sin objetos
+// por entrada.
+public final class TileIndex {
+  public static final int SIZE = 32;
+
+  // Tags negativos: items; no negativos: segmento de serpiente (índice en Frame.snakes() y número de segmento)
+  public static final int OBSTACLE = -1;
+  public static final int MOUSE = -2;
+  public static final int TELEPORT = -3;
+  public static final int TURBO = -4;
+  private static final int SNAKE_BITS = 27;
+  private static final int MAX_SEGMENT = 15; // Los segmentos más lejanos se guardan como 15 (solo sirve para el sombreado)
+
+  private final int width;
+  private final int columns;
+  private final int rows;
+  private final int[] start;  // Tramo de la baldosa t: [start[t], start[t + 1])
+  private final int[] cells;
+  private final int[] tags;
+
+  private TileIndex(int width, int columns, int rows, int[] start, int[] cells, int[] tags) {
+    this.width = width;
+    this.columns = columns;
+    this.rows = rows;
+    this.start = start;
+    this.cells = cells;
+    this.tags = tags;
+  }
+
+  public static TileIndex build(int width, int height, Board.Items items, List<Frame.Body> snakes) {
+    int columns = (width + SIZE - 1) / SIZE;
+    int rows = (height + SIZE - 1) / SIZE;
+    int[] start = new int[columns * rows + 1];
+
+    // Pasada 1: contar entradas por baldosa
+    int[] tp = items.teleports();
+    int total = items.obstacles().length + items.mice().length + tp.length / 2 + items.turbo().length;
+    for (int c : items.obstacles()) start[tile(c, width, columns) + 1]++;
+    for (int c : items.mice()) start[tile(c, width, columns) + 1]++;
+    for (int k = 0; k < tp.length; k += 2) start[tile(tp[k], width, columns) + 1]++;
+    for (int c : items.turbo()) start[tile(c, width, columns) + 1]++;
+    for (Frame.Body body : snakes) {
+      for (int c : body.cells()) start[tile(c, width, columns) + 1]++;
+      total += body.cells().length;
+    }
+    for (int t = 0; t < columns * rows; t++) start[t + 1] += start[t];
+
+    // Pasada 2: llenar cada tramo en orden de dibujo
+    int[] next = Arrays.copyOf(start, start.length - 1);
+    int[] cells = new int[total];
+    int[] tags = new int[total];
+    for (int c : items.obstacles()) put(c, OBSTACLE, width, columns, next, cells, tags);
+    for (int c : items.mice()) put(c, MOUSE, width, columns, next, cells, tags);
+    for (int k = 0; k < tp.length; k += 2) put(tp[k], TELEPORT, width, columns, next, cells, tags);
+    for (int c : items.turbo()) put(c, TURBO, width, columns, next, cells, tags);
+    for (int s = 0; s < snakes.size(); s++) {
+      int[] body = snakes.get(s).cells();
+      for (int i = 0; i < body.length; i++) {
+        put(body[i], Math.min(i, MAX_SEGMENT) << SNAKE_BITS | s, width, columns, next, cells, tags);
+      }
+    }
+    return new TileIndex(width, columns, rows, start, cells, tags);
+  }
+
+  private static int tile(int cell, int width, int columns) {
+    return (cell / width / SIZE) * columns + (cell % width) / SIZE;
+  }
+
+  private static void put(int cell, int tag, int width, int columns, int[] next, int[] cells, int[] tags) {
+    int i = next[tile(cell, width, columns)]++;
+    cells[i] = cell;
+    tags[i] = tag;
+  }
+
+  public int columns() { return columns; }
+  public int rows() { return rows; }
+
+  // Primera entrada de la baldosa (tx, ty) y el fin (exclusivo) de su tramo
+  public int start(int tx, int ty) { return start[ty * columns + tx]; }
+  public int end(int tx, int ty) { return start[ty * columns + tx + 1]; }
+
+  public int x(int i) { return cells[i] % width; }
+  public int y(int i) { return cells[i] / width; }
+  public int tag(int i) { return tags[i]; }
+
+  public static boolean isSnake(int tag) { return tag >= 0; }
+  public static int snake(int tag) { return tag & ((1 << SNAKE_BITS) - 1); }
+  public static int segment(int tag) { return tag >>> SNAKE_BITS; }
+}
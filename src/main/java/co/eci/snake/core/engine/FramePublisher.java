@@ -0,0 +1,57 @@
+package co.eci.snake.core.engine;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Frame;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.TileIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Publica un Frame por tick en una sola referencia volatile. El que dibuja (o cualquier otro lector) toma
+// current() sin locks ni copias; el cuadro siguiente reemplaza la referencia completa.
+public final class FramePublisher {
+  private final Board board;
+  private final List<Snake> snakes;
+  private volatile Frame current;
+  private long epoch = 0;
+
+  public FramePublisher(Board board, List<Snake> snakes) {
+    this.board = board;
+    this.snakes = List.copyOf(snakes);
+    publish();
+  }
+
+  // Arma y publica el cuadro del tick actual; llamarlo desde un solo hilo (el del reloj)
+  public Frame publish() {
+    Frame previous = current;
+    List<Frame.Body> bodies = new ArrayList<>(snakes.size());
+    boolean changed = previous == null;
+    for (int i = 0; i < snakes.size(); i++) {
+      Snake s = snakes.get(i);
+      int[] cells = s.cells(board.width());
+      boolean alive = !s.isDead();
+      Frame.Body old = previous != null ? previous.snakes().get(i) : null;
+      // Serpiente sin cambios: se reutiliza el mismo cuerpo del cuadro anterior
+      if (old != null && old.cells() == cells && old.alive() == alive) {
+        bodies.add(old);
+      } else {
+        bodies.add(new Frame.Body(s.id(), alive, cells));
+        changed = true;
+      }
+    }
+    var items = board.items();
+    // El índice por zonas solo se rearma si algo se movió o cambiaron los items
+    TileIndex tiles = !changed && previous.items() == items
+        ? previous.tiles()
+        : TileIndex.build(board.width(), board.height(), items, bodies);
+    Frame frame = new Frame(++epoch, board.width(), board.height(), items, Collections.unmodifiableList(bodies), tiles);
+    current = frame;
+    return frame;
+  }
+
+  public Frame current() {
+    return current;
+  }
+}
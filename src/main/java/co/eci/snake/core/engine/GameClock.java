@@ -26,7 +26,18 @@ public final class GameClock implements AutoCloseable {
     }
   }
 
-  public void pause()  { state.set(GameState.PAUSED); }
+  // Retorna cuando no hay un tick en curso (el ejecutor es de un solo hilo: basta esperar una tarea vacía)
+  public void pause()  {
+    state.set(GameState.PAUSED);
+    if (scheduler.isShutdown()) return;
+    try {
+      scheduler.submit(() -> { }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (java.util.concurrent.ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
   public void resume() { state.set(GameState.RUNNING); }
   public void stop()   { state.set(GameState.STOPPED); }
   @Override public void close() { scheduler.shutdownNow(); }
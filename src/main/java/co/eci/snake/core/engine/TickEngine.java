@@ -0,0 +1,117 @@
+package co.eci.snake.core.engine;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Snake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Motor por ticks: en cada tick todas las serpientes vivas se mueven una vez (dos con turbo).
+// Cada movimiento tiene dos fases:
+//   1. En paralelo (ForkJoin sobre la lista): giro al azar; cada serpiente solo toca su propio estado.
+//   2. Board.stepAll mueve a todas a la vez: los destinos y los conflictos (misma celda, cabezas que se cruzan,
+//      colas que se sueltan) se calculan también en paralelo contra el estado previo al movimiento, sin depender
+//      del orden del lote; solo comer y hacer aparecer items va en un hilo, en orden del lote.
+// Cada serpiente tiene su propio generador derivado de la semilla, así que con un Board con la misma semilla
+// la partida se repite exactamente, sin importar cuántos hilos haya.
+public final class TickEngine {
+  private static final int TURBO_TICKS = 50;   // Ticks con turbo (a dos movimientos por tick)
+  private static final int TURBO_MOVES = 2;    // Movimientos por tick con turbo
+  private static final int PARALLEL_THRESHOLD = 256; // Por debajo no vale la pena repartir la fase 1
+
+  private final Board board;
+  private final List<Snake> snakes;
+  private final SplittableRandom[] random;
+  private final int[] turboTicks;
+  private final boolean[] active;
+  // Lote de cada movimiento, reutilizado: serpientes activas, su lugar en snakes y su resultado
+  private final Snake[] batch;
+  private final int[] index;
+  private final Board.MoveResult[] results;
+
+  private volatile long ticks = 0;
+  private volatile long moves = 0;
+
+  public TickEngine(Board board, List<Snake> snakes, long seed) {
+    this.board = board;
+    this.snakes = new ArrayList<>(snakes);
+    this.snakes.sort(Comparator.comparingInt(Snake::id));
+    int n = this.snakes.size();
+    this.random = new SplittableRandom[n];
+    SplittableRandom root = new SplittableRandom(seed);
+    for (int i = 0; i < n; i++) random[i] = root.split();
+    this.turboTicks = new int[n];
+    this.active = new boolean[n];
+    this.batch = new Snake[n];
+    this.index = new int[n];
+    this.results = new Board.MoveResult[n];
+  }
+
+  // Avanza un tick; pensado para pasarse como tarea de GameClock
+  public void tick() {
+    for (int move = 0; move < TURBO_MOVES; move++) {
+      for (int i = 0; i < snakes.size(); i++) {
+        active[i] = !snakes.get(i).isDead() && (move == 0 || turboTicks[i] > 0);
+      }
+      moveAll();
+    }
+    for (int i = 0; i < turboTicks.length; i++) {
+      if (turboTicks[i] > 0) turboTicks[i]--;
+    }
+    ticks++;
+  }
+
+  private void moveAll() {
+    int n = snakes.size();
+
+    // Fase 1: decidir giro (cada serpiente solo toca su propio estado)
+    IntStream range = IntStream.range(0, n);
+    if (n >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) range = range.parallel();
+    range.forEach(i -> {
+      if (!active[i]) return;
+      double p = turboTicks[i] > 0 ? 0.05 : 0.10;
+      if (random[i].nextDouble() < p) {
+        var dirs = Direction.values();
+        snakes.get(i).turn(dirs[random[i].nextInt(dirs.length)]);
+      }
+    });
+
+    // Fase 2: todas se mueven a la vez; las que chocan quedan muertas dentro de stepAll
+    int m = 0;
+    for (int i = 0; i < n; i++) {
+      if (!active[i]) continue;
+      batch[m] = snakes.get(i);
+      index[m++] = i;
+    }
+    board.stepAll(batch, m, results);
+    for (int k = 0; k < m; k++) {
+      switch (results[k]) {
+        case ATE_MOUSE -> batch[k].recordMouseEaten();
+        case ATE_TURBO -> turboTicks[index[k]] = TURBO_TICKS;
+        default -> { }
+      }
+    }
+    moves += m;
+  }
+
+  // Serpientes del motor, en su orden (solo lectura)
+  public List<Snake> snakes() { return Collections.unmodifiableList(snakes); }
+
+  // Pone otra serpiente en el lugar i, p. ej. en reemplazo de una muerta; entre ticks y ya agregada al tablero
+  // (Board.addSnake). Sigue con el generador de ese lugar, así que con semilla la partida se sigue repitiendo
+  public void replace(int i, Snake snake) {
+    snakes.set(i, snake);
+    turboTicks[i] = 0;
+  }
+
+  public long getTicks() { return ticks; }
+
+  // Movimientos aplicados desde el inicio
+  public long getMoves() { return moves; }
+}
@@ -3,14 +3,23 @@ package co.eci.snake.ui.legacy;
 import co.eci.snake.concurrency.SnakeRunner;
 import co.eci.snake.core.Board;
 import co.eci.snake.core.Direction;
+import co.eci.snake.core.Frame;
 import co.eci.snake.core.GameController;
+import co.eci.snake.core.MoveJournal;
 import co.eci.snake.core.Position;
 import co.eci.snake.core.Snake;
+import co.eci.snake.core.TileIndex;
+import co.eci.snake.core.engine.FramePublisher;
 import co.eci.snake.core.engine.GameClock;
+import co.eci.snake.core.engine.TickEngine;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
@@ -25,22 +34,53 @@ public final class SnakeApp extends JFrame {
   private final StatsPanel statsPanel;
   private final GameController controller;
   private final java.util.concurrent.ExecutorService executor;
+  private final TickEngine engine; // null: un SnakeRunner por serpiente
+  private final FramePublisher frames; // Cuadro publicado en cada tick del reloj
+  private final boolean seeded; // Serpientes con generador propio (grabando)
+  private final long seed;
   private boolean gameStarted = false;
 
   public SnakeApp() {
     super("The Snake Race");
-    this.board = new Board(50, 50);
+    var mode = "lockfree".equals(System.getProperty("board")) ? Board.Mode.LOCK_FREE : Board.Mode.LOCKED;
+    // -Dengine=tick: todas las serpientes avanzan por ticks del reloj; con -Dseed la partida es reproducible
+    boolean tickMode = "tick".equals(System.getProperty("engine"));
+    long seed = Long.getLong("seed", System.nanoTime());
+    // -Dwidth/-Dheight: tablero más grande; la vista se desplaza y se acerca con Ctrl + rueda
+    int width = Integer.getInteger("width", 50);
+    int height = Integer.getInteger("height", 50);
+    // -Djournal=archivo: graba la partida (tablero y serpientes con semilla) para reproducirla con Replay
+    String journal = System.getProperty("journal");
+    this.seeded = tickMode || journal != null;
+    this.seed = seed;
+    this.board = seeded ? new Board(width, height, mode, seed) : new Board(width, height, mode);
+    if (journal != null) {
+      board.setJournal(MoveJournal.create(Path.of(journal), width, height, seed));
+      // Al cerrar la ventana se escribe el checksum final
+      Runtime.getRuntime().addShutdownHook(new Thread(board::closeJournal));
+    }
 
     int N = Integer.getInteger("snakes", 2);
     for (int i = 0; i < N; i++) {
-      int x = 2 + (i * 3) % board.width();
-      int y = 2 + (i * 2) % board.height();
       var dir = Direction.values()[i % Direction.values().length];
-      snakes.add(Snake.of(i, x, y, dir));
+      // Si la celda ya tiene serpiente, se prueba la siguiente
+      for (int c = 0; ; c++) {
+        int x = (2 + (i * 3) + c) % board.width();
+        int y = (2 + (i * 2) + c / board.width()) % board.height();
+        Snake s = Snake.of(i, x, y, dir);
+        if (board.addSnake(s)) {
+          snakes.add(s);
+          break;
+        }
+      }
     }
 
-    this.gamePanel = new GamePanel(board, () -> snakes);
-    this.clock = new GameClock(60, () -> SwingUtilities.invokeLater(gamePanel::repaint));
+    this.frames = new FramePublisher(board, snakes);
+    this.gamePanel = new GamePanel(board, frames::current);
+    this.engine = tickMode ? new TickEngine(board, snakes, seed) : null;
+    this.clock = tickMode
+        ? new GameClock(80, () -> { engine.tick(); frames.publish(); SwingUtilities.invokeLater(gamePanel::repaint); })
+        : new GameClock(60, () -> { frames.publish(); SwingUtilities.invokeLater(gamePanel::repaint); });
     this.controller = new GameController(snakes, clock); // NUEVO
     this.statsPanel = new StatsPanel(controller); // NUEVO
     this.executor = Executors.newVirtualThreadPerTaskExecutor();
@@ -48,7 +88,10 @@ public final class SnakeApp extends JFrame {
 
     // Layout
     setLayout(new BorderLayout());
-    add(gamePanel, BorderLayout.CENTER);
+    var scroll = new JScrollPane(gamePanel);
+    var view = gamePanel.getPreferredSize();
+    scroll.setPreferredSize(new Dimension(Math.min(view.width + 3, 1000), Math.min(view.height + 3, 760)));
+    add(scroll, BorderLayout.CENTER);
     add(statsPanel, BorderLayout.NORTH); // NUEVO
     add(actionButton, BorderLayout.SOUTH);
 
@@ -138,7 +181,9 @@ public final class SnakeApp extends JFrame {
       // Iniciar el juego por primera vez
       gameStarted = true;
       actionButton.setText("Pausar");
-      snakes.forEach(s -> executor.submit(new SnakeRunner(s, board, controller)));
+      if (engine == null) {
+        snakes.forEach(s -> executor.submit(seeded ? new SnakeRunner(s, board, controller, seed) : new SnakeRunner(s, board, controller)));
+      }
       clock.start();
     } else if ("Pausar".equals(actionButton.getText())) {
       // Pausar el juego
@@ -154,141 +199,282 @@ public final class SnakeApp extends JFrame {
   }
 
   public static final class GamePanel extends JPanel {
+    private static final int MIN_CELL = 1;
+    private static final int MAX_CELL = 40;
+    private static final int SHAPES_CELL = 6;   // Desde aquí se dibujan rectángulos por item; más abajo, un píxel por celda
+    private static final int DETAIL_CELL = 12;  // Desde aquí: grilla, figuras de cada item y números en las cabezas
+
+    // Paleta de colores distintos para hasta 20 serpientes
+    private static final Color[] COLORS = {
+        new Color(0, 170, 0),      // Verde
+        new Color(0, 160, 180),    // Cyan
+        new Color(220, 50, 50),    // Rojo
+        new Color(255, 165, 0),    // Naranja
+        new Color(138, 43, 226),   // Violeta
+        new Color(255, 20, 147),   // Rosa
+        new Color(70, 130, 180),   // Azul acero
+        new Color(34, 139, 34),    // Verde bosque
+        new Color(218, 165, 32),   // Dorado
+        new Color(148, 0, 211),    // Púrpura oscuro
+        new Color(0, 128, 128),    // Verde azulado
+        new Color(210, 105, 30),   // Chocolate
+        new Color(100, 149, 237),  // Azul cielo
+        new Color(154, 205, 50),   // Verde amarillento
+        new Color(199, 21, 133),   // Magenta medio
+        new Color(32, 178, 170),   // Verde mar claro
+        new Color(255, 99, 71),    // Tomate
+        new Color(106, 90, 205),   // Azul pizarra
+        new Color(72, 209, 204),   // Turquesa medio
+        new Color(255, 140, 0)     // Naranja oscuro
+    };
+    private static final Color OBSTACLE = new Color(255, 102, 0);
+    private static final Color TURBO_PIXEL = new Color(218, 165, 32); // En un píxel el rayo negro se confundiría con un ratón
+    private static final Color GRID = new Color(220, 220, 220);
+
     private final Board board;
-    private final Supplier snakesSupplier;
-    private final int cell = 20;
+    private final FrameSource frames;
+    private int cell;
+    private BufferedImage pixels; // Reutilizada entre cuadros mientras no cambie el tamaño de la ventana
+    private Font headFont; // Números de las cabezas; se vuelve a crear solo al cambiar el tamaño de celda
 
+    // Último cuadro publicado; se lee sin locks ni copias
     @FunctionalInterface
-    public interface Supplier {
-      List<Snake> get();
+    public interface FrameSource {
+      Frame get();
     }
 
-    public GamePanel(Board board, Supplier snakesSupplier) {
+    public GamePanel(Board board, FrameSource frames) {
       this.board = board;
-      this.snakesSupplier = snakesSupplier;
-      setPreferredSize(new Dimension(board.width() * cell + 1, board.height() * cell + 40));
+      this.frames = frames;
+      // Tamaño inicial: que el tablero quepa en ~1000 px, sin pasar de 20 px por celda
+      this.cell = Math.max(MIN_CELL, Math.min(20, 1000 / Math.max(board.width(), board.height())));
+      setPreferredSize(boardSize());
       setBackground(Color.WHITE);
+
+      // Ctrl + rueda: zoom alrededor del puntero; sin Ctrl la rueda desplaza el JScrollPane
+      addMouseWheelListener(e -> {
+        if (e.isControlDown()) {
+          zoom(e.getPoint(), e.getWheelRotation() < 0 ? 1.25 : 0.8);
+        } else if (getParent() != null && getParent().getParent() instanceof JScrollPane scroll) {
+          scroll.dispatchEvent(SwingUtilities.convertMouseEvent(this, e, scroll));
+        }
+      });
+    }
+
+    private Dimension boardSize() {
+      return new Dimension(board.width() * cell + 1, board.height() * cell + 1);
+    }
+
+    // Cambia el tamaño de celda dejando la misma celda bajo el punto p
+    private void zoom(Point p, double factor) {
+      int next = (int) Math.round(cell * factor);
+      if (next == cell) next += factor > 1 ? 1 : -1;
+      next = Math.max(MIN_CELL, Math.min(MAX_CELL, next));
+      if (next == cell) return;
+      JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+      double bx = p.x / (double) cell, by = p.y / (double) cell;
+      cell = next;
+      setPreferredSize(boardSize());
+      setSize(getPreferredSize());
+      if (viewport != null) {
+        Point view = viewport.getViewPosition();
+        int vx = (int) Math.round(bx * cell) - (p.x - view.x);
+        int vy = (int) Math.round(by * cell) - (p.y - view.y);
+        Dimension extent = viewport.getExtentSize();
+        vx = Math.max(0, Math.min(vx, getWidth() - extent.width));
+        vy = Math.max(0, Math.min(vy, getHeight() - extent.height));
+        viewport.setViewPosition(new Point(vx, vy));
+      }
+      revalidate();
+      repaint();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
       super.paintComponent(g);
+      Frame frame = frames.get();
+      Rectangle clip = g.getClipBounds();
+      if (clip == null) clip = getVisibleRect();
+
+      // Celdas visibles (inclusive); todo lo demás se descarta por baldosa, sin mirarlo
+      int c0 = Math.max(0, clip.x / cell);
+      int r0 = Math.max(0, clip.y / cell);
+      int c1 = Math.min(frame.width() - 1, (clip.x + clip.width - 1) / cell);
+      int r1 = Math.min(frame.height() - 1, (clip.y + clip.height - 1) / cell);
+      if (c0 > c1 || r0 > r1) return;
+
       var g2 = (Graphics2D) g.create();
-      g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-      g2.setColor(new Color(220, 220, 220));
-      for (int x = 0; x <= board.width(); x++)
-        g2.drawLine(x * cell, 0, x * cell, board.height() * cell);
-      for (int y = 0; y <= board.height(); y++)
-        g2.drawLine(0, y * cell, board.width() * cell, y * cell);
-
-      // Obstáculos
-      g2.setColor(new Color(255, 102, 0));
-      for (var p : board.obstacles()) {
-        int x = p.x() * cell, y = p.y() * cell;
-        g2.fillRect(x + 2, y + 2, cell - 4, cell - 4);
-        g2.setColor(Color.RED);
-        g2.drawLine(x + 4, y + 4, x + cell - 6, y + 4);
-        g2.drawLine(x + 4, y + 8, x + cell - 6, y + 8);
-        g2.drawLine(x + 4, y + 12, x + cell - 6, y + 12);
-        g2.setColor(new Color(255, 102, 0));
+      if (cell < SHAPES_CELL) {
+        paintPixels(g2, frame, c0, r0, c1, r1);
+      } else {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (cell >= DETAIL_CELL) {
+          g2.setColor(GRID);
+          for (int x = c0; x <= c1 + 1; x++)
+            g2.drawLine(x * cell, r0 * cell, x * cell, (r1 + 1) * cell);
+          for (int y = r0; y <= r1 + 1; y++)
+            g2.drawLine(c0 * cell, y * cell, (c1 + 1) * cell, y * cell);
+        }
+        paintShapes(g2, frame, c0, r0, c1, r1);
       }
+      g2.dispose();
+    }
 
-      // Ratones
-      g2.setColor(Color.BLACK);
-      for (var p : board.mice()) {
-        int x = p.x() * cell, y = p.y() * cell;
-        g2.fillOval(x + 4, y + 4, cell - 8, cell - 8);
-        g2.setColor(Color.WHITE);
-        g2.fillOval(x + 8, y + 8, cell - 16, cell - 16);
-        g2.setColor(Color.BLACK);
+    // Nivel de detalle bajo: un píxel por celda en una imagen del tamaño de la zona visible, escalada al dibujarla
+    private void paintPixels(Graphics2D g2, Frame frame, int c0, int r0, int c1, int r1) {
+      int w = c1 - c0 + 1, h = r1 - r0 + 1;
+      if (pixels == null || pixels.getWidth() != w || pixels.getHeight() != h) {
+        pixels = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
       }
+      int[] rgb = ((DataBufferInt) pixels.getRaster().getDataBuffer()).getData();
+      Arrays.fill(rgb, 0xFFFFFF);
 
-      // Teleports (flechas rojas)
-      Map<Position, Position> tp = board.teleports();
-      g2.setColor(Color.RED);
-      for (var entry : tp.entrySet()) {
-        Position from = entry.getKey();
-        int x = from.x() * cell, y = from.y() * cell;
-        int[] xs = { x + 4, x + cell - 4, x + cell - 10, x + cell - 10, x + 4 };
-        int[] ys = { y + cell / 2, y + cell / 2, y + 4, y + cell - 4, y + cell / 2 };
-        g2.fillPolygon(xs, ys, xs.length);
+      TileIndex tiles = frame.tiles();
+      List<Frame.Body> snakes = frame.snakes();
+      for (int ty = r0 / TileIndex.SIZE; ty <= r1 / TileIndex.SIZE; ty++) {
+        for (int tx = c0 / TileIndex.SIZE; tx <= c1 / TileIndex.SIZE; tx++) {
+          for (int i = tiles.start(tx, ty), end = tiles.end(tx, ty); i < end; i++) {
+            int x = tiles.x(i), y = tiles.y(i);
+            if (x < c0 || x > c1 || y < r0 || y > r1) continue;
+            int tag = tiles.tag(i);
+            int color = switch (tag) {
+              case TileIndex.OBSTACLE -> OBSTACLE.getRGB();
+              case TileIndex.MOUSE -> Color.BLACK.getRGB();
+              case TileIndex.TELEPORT -> Color.RED.getRGB();
+              case TileIndex.TURBO -> TURBO_PIXEL.getRGB();
+              default -> getSnakeColor(snakes.get(TileIndex.snake(tag)).id()).getRGB();
+            };
+            rgb[(y - r0) * w + (x - c0)] = color;
+          }
+        }
       }
+      g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+      g2.drawImage(pixels, c0 * cell, r0 * cell, w * cell, h * cell, null);
+    }
 
-      // Turbo (rayos)
-      g2.setColor(Color.BLACK);
-      for (var p : board.turbo()) {
-        int x = p.x() * cell, y = p.y() * cell;
-        int[] xs = { x + 8, x + 12, x + 10, x + 14, x + 6, x + 10 };
-        int[] ys = { y + 2, y + 2, y + 8, y + 8, y + 16, y + 10 };
-        g2.fillPolygon(xs, ys, xs.length);
+    // Niveles medio y alto: una figura por item o segmento visible; las figuras finas solo con celdas grandes
+    private void paintShapes(Graphics2D g2, Frame frame, int c0, int r0, int c1, int r1) {
+      boolean detail = cell >= DETAIL_CELL;
+      TileIndex tiles = frame.tiles();
+      List<Frame.Body> snakes = frame.snakes();
+      int size = Math.max(8, 12 * cell / 20);
+      if (headFont == null || headFont.getSize() != size) headFont = new Font("Arial", Font.BOLD, size);
+      Font font = headFont;
+      for (int ty = r0 / TileIndex.SIZE; ty <= r1 / TileIndex.SIZE; ty++) {
+        for (int tx = c0 / TileIndex.SIZE; tx <= c1 / TileIndex.SIZE; tx++) {
+          for (int i = tiles.start(tx, ty), end = tiles.end(tx, ty); i < end; i++) {
+            int cx = tiles.x(i), cy = tiles.y(i);
+            if (cx < c0 || cx > c1 || cy < r0 || cy > r1) continue;
+            int x = cx * cell, y = cy * cell;
+            int tag = tiles.tag(i);
+            switch (tag) {
+              case TileIndex.OBSTACLE -> {
+                g2.setColor(OBSTACLE);
+                g2.fillRect(x + s(2), y + s(2), cell - s(4), cell - s(4));
+                if (detail) {
+                  g2.setColor(Color.RED);
+                  g2.drawLine(x + s(4), y + s(4), x + cell - s(6), y + s(4));
+                  g2.drawLine(x + s(4), y + s(8), x + cell - s(6), y + s(8));
+                  g2.drawLine(x + s(4), y + s(12), x + cell - s(6), y + s(12));
+                }
+              }
+              // Ratones
+              case TileIndex.MOUSE -> {
+                g2.setColor(Color.BLACK);
+                g2.fillOval(x + s(4), y + s(4), cell - s(8), cell - s(8));
+                if (detail) {
+                  g2.setColor(Color.WHITE);
+                  g2.fillOval(x + s(8), y + s(8), cell - s(16), cell - s(16));
+                }
+              }
+              // Teleports (flechas rojas)
+              case TileIndex.TELEPORT -> {
+                g2.setColor(Color.RED);
+                if (detail) {
+                  int[] xs = { x + s(4), x + cell - s(4), x + cell - s(10), x + cell - s(10), x + s(4) };
+                  int[] ys = { y + cell / 2, y + cell / 2, y + s(4), y + cell - s(4), y + cell / 2 };
+                  g2.fillPolygon(xs, ys, xs.length);
+                } else {
+                  g2.fillRect(x + s(4), y + s(4), cell - s(8), cell - s(8));
+                }
+              }
+              // Turbo (rayos)
+              case TileIndex.TURBO -> {
+                g2.setColor(Color.BLACK);
+                if (detail) {
+                  int[] xs = { x + s(8), x + s(12), x + s(10), x + s(14), x + s(6), x + s(10) };
+                  int[] ys = { y + s(2), y + s(2), y + s(8), y + s(8), y + s(16), y + s(10) };
+                  g2.fillPolygon(xs, ys, xs.length);
+                } else {
+                  g2.setColor(TURBO_PIXEL);
+                  g2.fillRect(x + s(4), y + s(4), cell - s(8), cell - s(8));
+                }
+              }
+              // Serpientes
+              default -> {
+                Frame.Body snake = snakes.get(TileIndex.snake(tag));
+                g2.setColor(getSegmentColor(snake.id(), TileIndex.segment(tag)));
+                g2.fillRect(x + s(2), y + s(2), cell - s(4), cell - s(4));
+
+                // Dibujar número en la cabeza
+                if (detail && TileIndex.segment(tag) == 0) {
+                  g2.setColor(Color.WHITE);
+                  g2.setFont(font);
+                  String number = String.valueOf(snake.id());
+                  FontMetrics fm = g2.getFontMetrics();
+                  int textWidth = fm.stringWidth(number);
+                  int textHeight = fm.getAscent();
+                  g2.drawString(number,
+                      x + (cell - textWidth) / 2,
+                      y + (cell + textHeight) / 2 - 2);
+                }
+              }
+            }
+          }
+        }
       }
+    }
 
-      // Serpientes
-      var snakes = snakesSupplier.get();
-      for (int idx = 0; idx < snakes.size(); idx++) {
-        Snake s = snakes.get(idx);
-        var body = s.snapshot().toArray(new Position[0]);
-        Color base = getSnakeColor(idx);
-        
-        for (int i = 0; i < body.length; i++) {
-          var p = body[i];
-          int shade = Math.max(0, 40 - i * 4);
-          g2.setColor(new Color(
+    // Medida de las figuras originales (pensadas para celdas de 20 px) escalada al zoom actual
+    private int s(int pixels) {
+      return pixels * cell / 20;
+    }
+
+    // Colores ya calculados por id: con miles de serpientes no se crea un Color por segmento
+    private Color[] colorById = new Color[COLORS.length];
+
+    // Los primeros SHADES segmentos se aclaran hacia la cabeza; sus colores también se calculan una vez por id
+    private static final int SHADES = 10;
+    private Color[][] shadesById = new Color[COLORS.length][];
+
+    private Color getSegmentColor(int index, int segment) {
+      if (segment >= SHADES) return getSnakeColor(index);
+      if (index >= shadesById.length) shadesById = Arrays.copyOf(shadesById, Math.max(index + 1, 2 * shadesById.length));
+      Color[] shades = shadesById[index];
+      if (shades == null) {
+        Color base = getSnakeColor(index);
+        shades = shadesById[index] = new Color[SHADES];
+        for (int k = 0; k < SHADES; k++) {
+          int shade = 40 - k * 4;
+          shades[k] = new Color(
               Math.min(255, base.getRed() + shade),
               Math.min(255, base.getGreen() + shade),
-              Math.min(255, base.getBlue() + shade)));
-          g2.fillRect(p.x() * cell + 2, p.y() * cell + 2, cell - 4, cell - 4);
-          
-          // Dibujar número en la cabeza
-          if (i == 0 && body.length > 0) {
-            g2.setColor(Color.WHITE);
-            g2.setFont(new Font("Arial", Font.BOLD, 12));
-            String number = String.valueOf(idx);
-            FontMetrics fm = g2.getFontMetrics();
-            int textWidth = fm.stringWidth(number);
-            int textHeight = fm.getAscent();
-            g2.drawString(number, 
-                p.x() * cell + (cell - textWidth) / 2, 
-                p.y() * cell + (cell + textHeight) / 2 - 2);
-          }
+              Math.min(255, base.getBlue() + shade));
         }
       }
-      g2.dispose();
+      return shades[segment];
     }
-    
+
     private Color getSnakeColor(int index) {
-      // Paleta de colores distintos para hasta 20 serpientes
-      Color[] colors = {
-          new Color(0, 170, 0),      // Verde
-          new Color(0, 160, 180),    // Cyan
-          new Color(220, 50, 50),    // Rojo
-          new Color(255, 165, 0),    // Naranja
-          new Color(138, 43, 226),   // Violeta
-          new Color(255, 20, 147),   // Rosa
-          new Color(70, 130, 180),   // Azul acero
-          new Color(34, 139, 34),    // Verde bosque
-          new Color(218, 165, 32),   // Dorado
-          new Color(148, 0, 211),    // Púrpura oscuro
-          new Color(0, 128, 128),    // Verde azulado
-          new Color(210, 105, 30),   // Chocolate
-          new Color(100, 149, 237),  // Azul cielo
-          new Color(154, 205, 50),   // Verde amarillento
-          new Color(199, 21, 133),   // Magenta medio
-          new Color(32, 178, 170),   // Verde mar claro
-          new Color(255, 99, 71),    // Tomate
-          new Color(106, 90, 205),   // Azul pizarra
-          new Color(72, 209, 204),   // Turquesa medio
-          new Color(255, 140, 0)     // Naranja oscuro
-      };
-      
-      if (index < colors.length) {
-        return colors[index];
+      if (index < COLORS.length) {
+        return COLORS[index];
       }
+      if (index >= colorById.length) colorById = Arrays.copyOf(colorById, Math.max(index + 1, 2 * colorById.length));
+      if (colorById[index] != null) return colorById[index];
       
       // Para más de 20 serpientes, generar colores usando HSB
       float hue = (index * 137.508f) % 360 / 360f; // Golden angle para distribución uniforme
-      return Color.getHSBColor(hue, 0.7f, 0.8f);
+      return colorById[index] = Color.getHSBColor(hue, 0.7f, 0.8f);
     }
   }
 
@@ -4,16 +4,22 @@ package co.eci.snake.ui.legacy;
 import co.eci.snake.core.*;
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
 
 public class StatsPanel extends JPanel {
     private final GameController controller;
     private JLabel longestLabel;
     private JLabel worstLabel;
     private JLabel stateLabel;
+    private JLabel latencyLabel;
+    private JLabel totalsLabel;
+
+    // Cantidad de serpientes que se muestran en la tabla de posiciones
+    private static final int TOP = 3;
 
     public StatsPanel(GameController controller) {
         this.controller = controller;
-        setLayout(new GridLayout(3, 1, 5, 5));
+        setLayout(new GridLayout(5, 1, 5, 5));
         setBackground(new Color(240, 240, 240));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
@@ -22,41 +28,51 @@ public class StatsPanel extends JPanel {
         
         longestLabel = new JLabel("Serpiente más larga: -");
         worstLabel = new JLabel("Peor serpiente: -");
+        latencyLabel = new JLabel("Latencia de pausa: -");
+        totalsLabel = new JLabel("Vivas: -");
 
         add(stateLabel);
         add(longestLabel);
         add(worstLabel);
+        add(totalsLabel);
+        add(latencyLabel);
+
+        // Las estadísticas se mantienen en vivo, así que se refrescan también mientras el juego corre
+        new Timer(250, e -> updateStats()).start();
     }
 
     public void updateStats() {
         GameState state = controller.getState();
         stateLabel.setText("Estado: " + state);
         
-        if (state == GameState.PAUSED) {
-            SnakeStats longest = controller.getLongestSnake();
-            SnakeStats worst = controller.getWorstSnake();
-
-            if (longest != null) {
-                longestLabel.setText(String.format(
-                    "🏆 Serpiente más larga: #%d (Longitud: %d, Ratones: %d)",
-                    longest.snakeId(), longest.length(), longest.miceEaten()
-                ));
-            } else {
-                longestLabel.setText("🏆 Serpiente más larga: Ninguna viva");
-            }
+        latencyLabel.setText(String.format("Latencia: pausa %.3f ms, reanudar %.3f ms",
+            controller.getLastPauseNanos() / 1e6, controller.getLastResumeNanos() / 1e6));
+
+        Leaderboard board = controller.getLeaderboard();
+        List<SnakeStats> top = board.top(TOP);
+        SnakeStats worst = controller.getWorstSnake();
 
-            if (worst != null) {
-                long survivalSeconds = worst.survivalTime() / 1000;
-                worstLabel.setText(String.format(
-                    "💀 Peor serpiente: #%d (Sobrevivió: %d segundos)",
-                    worst.snakeId(), survivalSeconds
-                ));
-            } else {
-                worstLabel.setText("💀 Peor serpiente: Ninguna muerta aún");
+        if (!top.isEmpty()) {
+            StringBuilder text = new StringBuilder("🏆 Más largas:");
+            for (SnakeStats s : top) {
+                text.append(String.format(" #%d (Longitud: %d, Ratones: %d)", s.snakeId(), s.length(), s.miceEaten()));
             }
+            longestLabel.setText(text.toString());
         } else {
-            longestLabel.setText("Serpiente más larga: (pausar para ver)");
-            worstLabel.setText("Peor serpiente: (pausar para ver)");
+            longestLabel.setText("🏆 Serpiente más larga: Ninguna viva");
         }
+
+        if (worst != null) {
+            long survivalSeconds = worst.survivalTime() / 1000;
+            worstLabel.setText(String.format(
+                "💀 Peor serpiente: #%d (Sobrevivió: %d segundos)",
+                worst.snakeId(), survivalSeconds
+            ));
+        } else {
+            worstLabel.setText("💀 Peor serpiente: Ninguna muerta aún");
+        }
+
+        totalsLabel.setText(String.format("Vivas: %d, muertas: %d, ratones comidos: %d",
+            board.alive(), board.dead(), board.miceEaten()));
     }
 }
\ No newline at end of file